@@ -0,0 +1,16 @@
+/**
+ * [AgentPlanner.java]
+ * Decides where a player in a match moves next
+ */
+
+interface AgentPlanner {
+    /**
+     * nextCell
+     * Chooses the move of a player for the current tick of a match.
+     * Only called for players that are alive and not busy looting.
+     * @param match The match being simulated.
+     * @param player The index of the player.
+     * @return int The cell to move to, which must be the player's cell or one of its neighbours.
+     */
+    int nextCell(MatchSimulation match, int player);
+}
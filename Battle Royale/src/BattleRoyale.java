@@ -19,22 +19,49 @@ class BattleRoyale {
     static final char CHAR_VISITED = 'v';
     // character to mark the final position of the path
     static final char CHAR_FINISH = 'f';
-    // offsets to be added to a position to get the next position
-    static final int[][] MOVES = new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}, {0, 0}};
 
     // CONSTANTS END
 
     // GLOBAL VARIABLES BEGIN
 
-    // 2D char array which contains the raw character of the inputted map at a position
-    static char[][] mapGrid;
-    // 2D int array which contains the amount of loot at a position
-    static int[][] mapLoot;
-    // character which represents the player, the same as the input map
-    static char mainCharPlayer = CHAR_PLAYER;
+    // how the boundaries shrink when running main. the standard square zone is used if this is not set for the map's dimensions
+    static ZoneModel zoneModel;
 
     // GLOBAL VARIABLES END
 
+    // SOLVER VARIABLES BEGIN
+
+    // the map being solved, with its tiles, loot and neighbours indexed by cell
+    final GameMap map;
+    // the raw character of the map at each cell
+    final char[] mapGrid;
+    // the amount of loot at each cell
+    final byte[] mapLoot;
+    // the cells reached by each move from a cell, GameMap.NEIGHBOURS entries per cell
+    final int[] neighbours;
+    // character which represents the player, the same as the input map
+    char mainCharPlayer = CHAR_PLAYER;
+    // the zone model compiled into per-position deadlines
+    final ZoneGrid zone;
+
+    // SOLVER VARIABLES END
+
+    /**
+     * BattleRoyale
+     * @param map The map to solve. It must not be changed while it is being solved.
+     * @param zone The compiled zone of the map.
+     */
+    BattleRoyale(GameMap map, ZoneGrid zone) {
+        if ((zone.length != map.length) || (zone.width != map.width)) {
+            throw new IllegalArgumentException("The zone does not cover the map");
+        }
+        this.map = map;
+        mapGrid = map.tiles;
+        mapLoot = map.loot;
+        neighbours = map.neighbours;
+        this.zone = zone;
+    }
+
     /**
      * main
      * This is the starting method of the program
@@ -43,6 +70,7 @@ class BattleRoyale {
      */
     public static void main(String[] args) throws IOException {
         Scanner userInput = new Scanner(System.in);
+        GameMap map = null;
 
         do {
             // get the map file
@@ -52,119 +80,109 @@ class BattleRoyale {
 
             // read the map from the file
             if (mapFile.exists() && mapFile.isFile()) {
-                mapGrid = getMapFromFile(mapFile);
-                if (mapGrid == null) {
+                map = GameMap.readFromFile(mapFile);
+                if (map == null) {
                     System.out.println("The file does not contain a map");
                 }
             } else {
                 System.out.println("The file does not exist");
             }
-        } while (mapGrid == null);
-
-        int mapLength = mapGrid.length;
-        int mapWidth = mapGrid[0].length;
+        } while (map == null);
 
-        // fill the loot grid with the amounts of loot
-        mapLoot = new int[mapLength][mapWidth];
-        for (int i = 0; i < mapLength; ++i) {
-            for (int j = 0; j < mapWidth; ++j) {
-                if (Character.isDigit(mapGrid[i][j])) {
-                    mapLoot[i][j] = Character.getNumericValue(mapGrid[i][j]);
-                }
-            }
+        // compile the zone so that checking whether the player dies is a single lookup
+        if ((zoneModel == null) || (zoneModel.getLength() != map.length) || (zoneModel.getWidth() != map.width)) {
+            zoneModel = new SquareZoneModel(map.length, map.width);
         }
+        ZoneGrid compiledZone = ZoneGrid.compile(zoneModel);
+
+        long startTime = System.nanoTime();
+        PathResult result = new BattleRoyale(map, compiledZone).solve();
+        long endTime = System.nanoTime();
+        System.out.println("It took " + ((endTime - startTime)/1000000) + " milliseconds to find the best path");
+
+        // the result says that no path exists if none was found
+        System.out.print(result);
 
-        // the row and column of the centre of the map
-        int centreRow = mapLength/2;
-        int centreCol = mapWidth/2;
+        userInput.close();
+    }
+
+    /**
+     * solve
+     * Finds the best path from the player's position, or the best position to drop in if the map has no player.
+     * The search keeps its state in the solver, so separate solvers can solve maps at the same time.
+     * @return PathResult The best path found.
+     */
+    PathResult solve() {
+        // the cell of the centre of the map
+        int centre = map.cell(zone.centreRow, zone.centreCol);
 
-        // the row and column to start searching from. set to -1 by default
-        int startRow = -1;
-        int startCol = -1;
+        // the cell to start searching from. set to -1 by default
+        int start = -1;
 
         // the best path found
-        char[][] bestPathMap = null;
+        char[] bestPathMap = null;
         // the amount of loot the best path contains
         int bestLoot = -1;
 
         // finds the player's position in the map, if it exists
-        for (int i = 0; i < mapGrid.length; ++i) {
-            for (int j = 0; j < mapGrid[i].length; ++j) {
-                if (mapGrid[i][j] == CHAR_PLAYER || mapGrid[i][j] == CHAR_PLAYER_CAPITAL) {
-                    mainCharPlayer = mapGrid[i][j];
-                    startRow = i;
-                    startCol = j;
-                }
-            }
+        start = GridScans.findLast(mapGrid, CHAR_PLAYER, CHAR_PLAYER_CAPITAL);
+        if (start != -1) {
+            mainCharPlayer = mapGrid[start];
         }
 
-        long startTime = System.nanoTime();
-
         // if the player is found, find the best path from the player's position
-        if ((startRow != -1) && (startCol != -1)) {
-            bestPathMap = findBestPath(mapGrid, startRow, startCol, centreRow, centreCol);
+        if (start != -1) {
+            bestPathMap = findBestPath(mapGrid, start, centre);
             if (bestPathMap != null) {
                 bestLoot = getPathMapLoot(bestPathMap);
             }
         } else {
             // if the player is not found, find the best location to drop in
             // iterate over all possible positions and try starting from them
-            for (int i = 0; i < mapGrid.length; ++i) {
-                for (int j = 0; j < mapGrid[i].length; ++j) {
-                    // check if there is no loot at the drop in position
-                    if (mapLoot[i][j] == 0) {
-                        // finds a path using i and j as the position
-                        char[][] potentialSolution = findBestPath(mapGrid, i, j, centreRow, centreCol);
-                        if (potentialSolution != null) {
-                            int potentialLoot = getPathMapLoot(potentialSolution);
-                            // sets the best path to this path if its loot is higher than the best loot so far
-                            if (potentialLoot > bestLoot) {
-                                bestLoot = potentialLoot;
-                                bestPathMap = potentialSolution;
-                                startRow = i;
-                                startCol = j;
-                            }
+            for (int cell = 0; cell < map.size; ++cell) {
+                // check if there is no loot at the drop in position
+                if (mapLoot[cell] == 0) {
+                    // finds a path using the cell as the position
+                    char[] potentialSolution = findBestPath(mapGrid, cell, centre);
+                    if (potentialSolution != null) {
+                        int potentialLoot = getPathMapLoot(potentialSolution);
+                        // sets the best path to this path if its loot is higher than the best loot so far
+                        if (potentialLoot > bestLoot) {
+                            bestLoot = potentialLoot;
+                            bestPathMap = potentialSolution;
+                            start = cell;
                         }
                     }
                 }
             }
         }
 
-        long endTime = System.nanoTime();
-        System.out.println("It took " + ((endTime - startTime)/1000000) + " milliseconds to find the best path");
-
         // best path will be null if no path was found
         if (bestPathMap != null) {
-            System.out.println("Path from (" + startRow + "," + startCol + ") to (" + centreRow + "," + centreCol + ") with " + bestLoot + " item(s) looted");
-            printArray(bestPathMap);
-        } else {
-            System.out.println("No path exists");
+            return new PathResult(map, start, centre, bestLoot, bestPathMap);
         }
-
-        userInput.close();
+        return PathResult.none(map);
     }
 
     /**
      * findBestPath
      * Finds and returns the path that contains the highest amount of loot and ends in the centre without dying.
      * @param originalMap A version of the map that will be used as a reference.
-     * @param startRow The row to start from.
-     * @param startCol The column to start from.
-     * @param goalRow The row to end the path on.
-     * @param goalCol The column to end the path on.
-     * @return char[][] a 2D array of characters representing a map with a path drawn on it. Will be null if there is no valid path.
+     * @param start The cell to start from.
+     * @param goal The cell to end the path on.
+     * @return char[] the cells of a map with a path drawn on it. Will be null if there is no valid path.
      */
-    static char[][] findBestPath(char[][] originalMap, int startRow, int startCol, int goalRow, int goalCol) {
+    char[] findBestPath(char[] originalMap, int start, int goal) {
         // copy of the map that will be modified to contain the path
-        char[][] pathMap = copyArray(originalMap);
-        // array that stores whether the position was looted before
-        boolean[][] looted = new boolean[originalMap.length][originalMap[0].length];
+        char[] pathMap = GameMap.copyArray(originalMap);
+        // array that stores whether the cell was looted before
+        boolean[] looted = new boolean[originalMap.length];
 
-        char[][] resultPath = findBestPathHelper(originalMap, pathMap, looted, startRow, startCol, goalRow, goalCol, 0);
+        char[] resultPath = findBestPathHelper(pathMap, looted, start, goal, 0);
 
         if (resultPath != null) {
-            resultPath[startRow][startCol] = CHAR_PLAYER;
-            resultPath[goalRow][goalCol] = CHAR_FINISH;
+            resultPath[start] = CHAR_PLAYER;
+            resultPath[goal] = CHAR_FINISH;
         }
         return resultPath;
     }
@@ -173,56 +191,50 @@ class BattleRoyale {
      * findBestPathHelper
      * Recursively explores neighboring positions and builds paths.
      * Will return a copy of the path if it reaches the centre and the boundaries have shrunk to the minimum size without killing the player.
-     * @param originalMap A version of the map that will not be modified to be used as reference.
      * @param pathMap A version of the map that contains the path so far.
-     * @param looted 2D array that stores whether the position was looted before
-     * @param row The current row the player would be on.
-     * @param col The current column the player would be on.
-     * @param goalRow The row to the path end on.
-     * @param goalCol The column to the path end on.
+     * @param looted Array that stores whether the cell was looted before
+     * @param cell The cell the player would be on.
+     * @param goal The cell the path ends on.
      * @param depth The number of times the boundaries have shrunk.
      * @return Map whe path with the highest amount of loot without the player dying.
      */
-    static char[][] findBestPathHelper(char[][] originalMap, char[][] pathMap, boolean[][] looted, int row, int col, int goalRow, int goalCol, int depth) {
-        int mapLength = originalMap.length;
-        int mapWidth = originalMap[0].length;
+    char[] findBestPathHelper(char[] pathMap, boolean[] looted, int cell, int goal, int depth) {
         // the maximum number of times the boundaries can shrink without completey covering the map
-        int maxDepth = Math.min(mapLength/2, mapWidth/2);
+        int maxDepth = zone.maxDepth;
         // set this position to be on the path
-        pathMap[row][col] = CHAR_VISITED;
+        pathMap[cell] = CHAR_VISITED;
 
         // returns a valid path if the position is equal to the goal and all moves have been used up
-        if ((row == goalRow) && (col == goalCol) && (depth == maxDepth)) {
-            return copyArray(pathMap);
+        if ((cell == goal) && (depth == maxDepth)) {
+            return GameMap.copyArray(pathMap);
         }
 
         int bestLoot = -1;
-        char[][] bestPathMap = null;
+        char[] bestPathMap = null;
 
         // tries all possible moves and finds the best path resulting from them
-        for (int i = 0; i < MOVES.length; ++i) {
-            int nextRow = row + MOVES[i][0];
-            int nextCol = col + MOVES[i][1];
+        for (int i = 0; i < GameMap.NEIGHBOURS; ++i) {
+            int next = neighbours[cell * GameMap.NEIGHBOURS + i];
 
-            if (isInBounds(originalMap.length, originalMap[0].length, nextRow, nextCol)) {
-                boolean[][] nextLooted = copyArray(looted);
+            if (next != GameMap.NO_NEIGHBOUR) {
+                boolean[] nextLooted = GameMap.copyArray(looted);
 
                 int nextDepth = depth;
 
                 // if the loot is greater than 1 and it has not been looted, loot it and shrink boundaries by the loot
-                if ((mapLoot[nextRow][nextCol] > 1) && (!nextLooted[nextRow][nextCol])) {
-                    nextLooted[nextRow][nextCol] = true;
+                if ((mapLoot[next] > 1) && (!nextLooted[next])) {
+                    nextLooted[next] = true;
                     // the next depth is the current depth plus the amount of time it takes to loot
-                    nextDepth += mapLoot[nextRow][nextCol];
+                    nextDepth += mapLoot[next];
                 } else {
                     // the next depth is the current depth plus one for the move
                     nextDepth += 1;
                 }
 
                 // checks if the player has died from the boundaries
-                if (!dieFromBoundary(mapLength, mapWidth, nextRow, nextCol, nextDepth)) {
-                    char[][] nextPathMap = copyArray(pathMap);
-                    char[][] finalMap = findBestPathHelper(originalMap, nextPathMap, nextLooted, nextRow, nextCol, goalRow, goalCol, nextDepth);
+                if (!dieFromBoundary(next, nextDepth)) {
+                    char[] nextPathMap = GameMap.copyArray(pathMap);
+                    char[] finalMap = findBestPathHelper(nextPathMap, nextLooted, next, goal, nextDepth);
                     if (finalMap != null) {
                         int finalLoot = getPathMapLoot(finalMap);
                         if (finalLoot > bestLoot) {
@@ -238,151 +250,26 @@ class BattleRoyale {
         return bestPathMap;
     }
 
-    /**
-     * isInBounds
-     * Checks if the given position is within the given dimensions.
-     * @param mapLength The number of rows the map has.
-     * @param mapWidth The number of columns the map has.
-     * @param row The row of the position to consider.
-     * @param col The column of the position to consider.
-     * @return boolean True if the position is within the dimensions of the map, false otherwise.
-     */
-    static boolean isInBounds(int mapLength, int mapWidth, int row, int col) {
-        return ((row >= 0) && (row < mapLength) && (col >= 0) && (col < mapWidth));
-    }
-
     /**
      * dieFromBoundary
      * Checks if the player dies at the position from boundaries shrunk the given number of times.
-     * @param mapLength The number of rows the map has.
-     * @param mapWidth The number of columns the map has.
-     * @param playerRow The row the player is on.
-     * @param playerCol The column the player is on.
+     * @param cell The cell the player is on.
      * @param depth The number of times the boundaries have shrunk.
      * @return boolean True if the player dies from the boundaries, false otherwise
      */
-    static boolean dieFromBoundary(int mapLength, int mapWidth, int playerRow, int playerCol, int depth) {
-        // the row that the bottom boundary is on.
-        int boundBottom = mapLength - depth - 1;
-        // the column that the right boundary is on.
-        int boundRight = mapWidth - depth - 1;
-        // checks if the row is on or outside the boundary
-        return (playerRow < depth) || (playerCol < depth) || (playerRow > boundBottom) || (playerCol > boundRight);
+    boolean dieFromBoundary(int cell, int depth) {
+        // checks if the depth is past the last depth the position is inside the boundaries
+        return depth > zone.deadlines[cell];
     }
 
     /**
      * getPathMapLoot
      * Finds and returns the amount of loot a map with a path contains.
-     * @param pathMap A map with a path drawn on it.
+     * @param pathMap The cells of a map with a path drawn on it.
      * @return int The amount of loot the path contains.
      */
-    static int getPathMapLoot(char[][] pathMap) {
-        int totalLoot = 0;
+    int getPathMapLoot(char[] pathMap) {
         // iterates over the entire path and sums the loot from positions in the path
-        for (int i = 0; i < pathMap.length; ++i) {
-            for (int j = 0; j < pathMap[i].length; ++j) {
-                if (pathMap[i][j] == CHAR_VISITED || pathMap[i][j] == CHAR_FINISH) {
-                    totalLoot += mapLoot[i][j];
-                }
-            }
-        }
-        return totalLoot;
-    }
-
-    /**
-     * getMapFromFile
-     * Reads a map from a file.
-     * @param mapFile The file to read.
-     * @return A 2D character array representing the map.
-     * @throws IOException Throws this exception if the file is not found.
-     */
-    static char[][] getMapFromFile(File mapFile) throws IOException {
-        Scanner fileInput = new Scanner(mapFile);
-
-        if (fileInput.hasNextLine()) {
-            // the current line read from the file
-            String line = fileInput.nextLine().replace(" ", "");
-            // the map in string form
-            String mapString = "";
-
-            // the number of rows of the map
-            int rows = 0;
-            // the number of columns in the map
-            int columns = line.length();
-
-            // continues reading map as long as there are more lines and the line is not blank
-            while (!line.isEmpty()) {
-                mapString += line;
-                ++rows;
-                if (fileInput.hasNextLine()) {
-                    line = fileInput.nextLine().replace(" ", "");
-                } else {
-                    line = "";
-                }
-            }
-
-            char[][] map = new char[rows][columns];
-            // fill the char[][] map using the string representation of the map 
-            for (int i = 0; i < rows; ++i) {
-                for (int j = 0; j < columns; ++j) {
-                    // transforms 2D indexes to 1D using 'number of rows' * 'length of a row' + 'number of columns'
-                    // 'i' is the number of rows and 'j' is the number of columns
-                    map[i][j] = mapString.charAt(i * columns + j);
-                }
-            }
-
-            fileInput.close();
-            return map;
-        } else {
-            fileInput.close();
-            return null;
-        }
-    }
-
-    /**
-     * printArray
-     * Outputs the given char[][]
-     * @param array A 2D char array.
-     */
-    static void printArray(char[][] array) {
-        for (int i = 0; i < array.length; ++i) {
-            for (int j = 0; j < array[0].length; ++j) {
-                System.out.print(Character.toString(array[i][j]));
-            }
-            System.out.println();
-        }
-        System.out.println();
-    }
-
-    /**
-     * copyArray
-     * Copies and returns the given boolean[][]
-     * @param array A 2D boolean array.
-     * @return boolean[][] A 2D boolean array that is a copy of the input.
-     */
-    static boolean[][] copyArray(boolean[][] array) {
-        boolean[][] copy = new boolean[array.length][array[0].length];
-        for (int i = 0; i < array.length; ++i) {
-            for (int j = 0; j < array[i].length; ++j) {
-                copy[i][j] = array[i][j];
-            }
-        }
-        return copy;
-    }
-
-    /**
-     * copyArray
-     * Copies and returns the given char[][]
-     * @param array A 2D char array.
-     * @return char[][] A 2D char array that is a copy of the input.
-     */
-    static char[][] copyArray(char[][] array) {
-        char[][] copy = new char[array.length][array[0].length];
-        for (int i = 0; i < array.length; ++i) {
-            for (int j = 0; j < array[i].length; ++j) {
-                copy[i][j] = array[i][j];
-            }
-        }
-        return copy;
+        return GridScans.sumMarkedLoot(pathMap, mapLoot, CHAR_VISITED, CHAR_FINISH);
     }
 }
@@ -1,9 +1,14 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.function.Function;
 
 public class BattleRoyaleOptimized {
     // CONSTANTS BEGIN
@@ -15,34 +20,158 @@ public class BattleRoyaleOptimized {
     static final char CHAR_VISITED = 'v';
     // character to mark the final position of the path
     static final char CHAR_FINISH = 'f';
+    // seed for the Zobrist keys, fixed so that runs are repeatable
+    static final long ZOBRIST_SEED = 0x5DEECE66DL;
+    // stored in place of a path segment that cannot be walked
+    static final int[] UNREACHABLE = new int[0];
+    // the most bytes the stored solutions can take up when no budget is given
+    static final long DEFAULT_MEMO_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 4;
 
     // CONSTANTS END
 
     // GLOBAL VARIABLES BEGIN
 
-    // grid of map's tiles
-    static char[][] mapGrid;
-    // grid of map's loot
-    static int[][] mapLoot;
+    // how the boundaries shrink when running main. the standard square zone is used if this is not set for the map's dimensions
+    static ZoneModel zoneModel;
+
+    // GLOBAL VARIABLES END
+
+    // SOLVER VARIABLES BEGIN
+
+    // the map being solved, with its tiles, loot and neighbours indexed by cell
+    final GameMap map;
+    // map's tiles, indexed by cell
+    final char[] mapGrid;
+    // map's loot, indexed by cell
+    final byte[] mapLoot;
     // map dimensions
-    static int mapLength, mapWidth;
+    final int mapLength, mapWidth;
     // maximum number of times the boundaries can shrink without covering the centre
-    static int maxDepth;
-    // coordinates of the map's centre
-    static int centreRow, centreCol;
+    final int maxDepth;
+    // coordinates and cell of the map's centre
+    final int centreRow, centreCol, centre;
     // character which represents the player, the same as the input map
-    static char mainCharPlayer = CHAR_PLAYER;
+    char mainCharPlayer = CHAR_PLAYER;
+    // the zone model compiled into per-position deadlines
+    final ZoneGrid zone;
 
-    // AStarSearcher uses A* algorithm to search for paths
-    static AStarSearcher pathfinder;
+    // path segments between cells, keyed by 'from' * 'map size' + 'to'. UNREACHABLE if there is no segment
+    final HashMap<Long, int[]> segments;
+    // cells that paths cannot go through
+    final boolean[] blocked;
 
     // For dynamic programming
-    // Zobrist uses Zobrist hashing to generate keys for dynamic programming states
-    static ZobristHasher zob;
-    // Hashmap that stores solutions to states
-    static HashMap<Long, List<Position>> storedSolutions;
+    // Zobrist keys for each depth, for each cell being targeted and for each cell a state is on
+    // a state's key is the key of its depth and cell XORed with the keys of its targeted cells, so it is updated as targets are taken
+    // and it does not depend on which other targets exist, so keys stay valid when targets are added or removed
+    final long[] depthKeys, cellKeys, positionKeys;
+    // the XOR of the keys of the cells targeted by the state being searched
+    long targetedKey;
+    // whether each cell has been targeted by the state being searched, or collected on the way to a target
+    final boolean[] targetedCells;
+    // the cells marked by markCollected, in the order they were marked, so they can be unmarked in reverse
+    final int[] collectedCells;
+    int collectedCount;
+    // stores solutions to states, removing the least useful when it runs out of room
+    final MemoStore storedSolutions;
+    // whether the store keeps paths. if not, solutions are stored without them and only the returned path is rebuilt
+    final boolean keepPaths;
+    // the number of states solved, used to tell how much work each stored solution saves
+    long solvedStates;
+    // marks the cells already counted by getNewLoot, with the stamp of the call that counted them
+    final int[] countedStamps;
+    int countStamp;
+
+    // For re-solving after the loot changes
+    // the cell and depth of the last search. -1 if there has not been one
+    int rootCell = -1, rootDepth = -1;
+    // the targets of the last search, kept up to date as the loot changes
+    int[] rootTargets;
+
+    // For searching within a time limit
+    // the System.nanoTime() after which the search gives up
+    long searchDeadline = Long.MAX_VALUE;
+    // whether the last search gave up before finishing
+    boolean searchAborted;
+    // whether the search has stored a solution since it started. it only gives up once it has, so searching again always gets further
+    boolean searchStored;
+
+    // SOLVER VARIABLES END
 
-    // GLOBAL VARIABLES END
+    /**
+     * BattleRoyaleOptimized
+     * Creates a solver for a map. Each solver keeps its own caches, so separate solvers can run on separate threads.
+     *
+     * @param map  The map to solve.
+     * @param zone The compiled zone of the map. Compiled zones never change, so one can be shared by many solvers.
+     */
+    BattleRoyaleOptimized(GameMap map, ZoneGrid zone) {
+        this(map, zone, DEFAULT_MEMO_BUDGET_BYTES);
+    }
+
+    /**
+     * BattleRoyaleOptimized
+     * @param map The map to solve. The solver reads and writes its loot directly.
+     * @param zone The compiled zone of the map.
+     * @param memoBudgetBytes The most bytes the stored solutions can take up.
+     * Once they are full the search finds the removed solutions again instead of running out of memory.
+     */
+    BattleRoyaleOptimized(GameMap map, ZoneGrid zone, long memoBudgetBytes) {
+        this(map, zone, solver -> new MemoTable(memoBudgetBytes));
+    }
+
+    /**
+     * BattleRoyaleOptimized
+     * @param map The map to solve. The solver reads and writes its loot directly.
+     * @param zone The compiled zone of the map.
+     * @param memoFactory Creates the store for the solver's stored solutions, such as an OffHeapMemoTable.
+     * It is called once the solver can find path segments.
+     */
+    BattleRoyaleOptimized(GameMap map, ZoneGrid zone, Function<BattleRoyaleOptimized, MemoStore> memoFactory) {
+        if ((zone.length != map.length) || (zone.width != map.width)) {
+            throw new IllegalArgumentException("The zone does not cover the map");
+        }
+
+        // sets variables about map attributes
+        // the map dimensions
+        this.map = map;
+        mapLength = map.length;
+        mapWidth = map.width;
+        mapGrid = map.tiles;
+        mapLoot = map.loot;
+
+        this.zone = zone;
+
+        // the row and column of the map centre
+        centreRow = zone.centreRow;
+        centreCol = zone.centreCol;
+        centre = map.cell(centreRow, centreCol);
+
+        // the maximum amount of times the boundaries can shrink without covering the centre
+        maxDepth = zone.maxDepth;
+
+        // initialize path finding objects
+        segments = new HashMap<>();
+        blocked = new boolean[map.size];
+
+        // initialize dynamic programming objects
+        storedSolutions = memoFactory.apply(this);
+        keepPaths = storedSolutions.keepsPaths();
+        Random rng = new Random(ZOBRIST_SEED);
+        depthKeys = new long[maxDepth + 1];
+        for (int i = 0; i < depthKeys.length; ++i) {
+            depthKeys[i] = rng.nextLong();
+        }
+        cellKeys = new long[map.size];
+        positionKeys = new long[map.size];
+        for (int i = 0; i < cellKeys.length; ++i) {
+            cellKeys[i] = rng.nextLong();
+            positionKeys[i] = rng.nextLong();
+        }
+        targetedCells = new boolean[map.size];
+        collectedCells = new int[map.size];
+        countedStamps = new int[map.size];
+    }
 
     /**
      * main
@@ -53,6 +182,7 @@ public class BattleRoyaleOptimized {
      */
     public static void main(String[] args) throws IOException {
         Scanner userInput = new Scanner(System.in);
+        GameMap map = null;
 
         // get the name of the file that contains the map
 
@@ -65,108 +195,95 @@ public class BattleRoyaleOptimized {
 
             // read the map from the file
             if (mapFile.exists() && mapFile.isFile()) {
-                mapGrid = getMapFromFile(mapFile);
-                if (mapGrid == null) {
+                map = GameMap.readFromFile(mapFile);
+                if (map == null) {
                     System.out.println("The file does not contain a map");
                 }
             } else {
                 System.out.println("The file does not exist");
             }
-        } while (mapGrid == null);
+        } while (map == null);
 
-        // sets global variables about map attributes
-        // the map dimensions
-        mapLength = mapGrid.length;
-        mapWidth = mapGrid[0].length;
+        // compile the zone so that checking whether the player dies is a single lookup
+        if ((zoneModel == null) || (zoneModel.getLength() != map.length) || (zoneModel.getWidth() != map.width)) {
+            zoneModel = new SquareZoneModel(map.length, map.width);
+        }
+        BattleRoyaleOptimized solver = new BattleRoyaleOptimized(map, ZoneGrid.compile(zoneModel));
 
-        // the row and column of the map centre
-        centreRow = mapLength / 2;
-        centreCol = mapWidth / 2;
+        long startTime = System.nanoTime();
+        PathResult result = solver.solve();
+        long endTime = System.nanoTime();
+        System.out.println("It took " + ((endTime - startTime) / 1000000) + " milliseconds to find the best path");
+        MemoStore memo = solver.storedSolutions;
+        System.out.println("Stored solutions: " + memo.getHits() + " hit(s), " + memo.getMisses() + " miss(es), " + memo.getEvictions() + " eviction(s), "
+                + (memo.getUsedBytes() / 1024) + " of " + (memo.getBudgetBytes() / 1024) + " KB used");
 
-        // the maximum amount of times the boundaries can shrink without covering the centre
-        maxDepth = Math.min(mapLength / 2, mapWidth / 2);
-
-        // fill the loot grid with the amounts of loot
-        mapLoot = new int[mapLength][mapWidth];
-        for (int i = 0; i < mapLength; ++i) {
-            for (int j = 0; j < mapWidth; ++j) {
-                if (Character.isDigit(mapGrid[i][j])) {
-                    mapLoot[i][j] = Character.getNumericValue(mapGrid[i][j]);
-                }
-            }
-        }
+        System.out.print(result);
 
-        // initialize path finding objects
-        pathfinder = new AStarSearcher(copyArray(mapGrid));
+        userInput.close();
+    }
 
-        // initialize dynamic programming objects
-        storedSolutions = new HashMap<>();
-        zob = new ZobristHasher(mapLength * mapWidth, mapLength * mapWidth);
+    /**
+     * solve
+     * Finds the best path from the player's position, or the best position to drop in if the map has no player.
+     *
+     * @return PathResult The best path found.
+     */
+    PathResult solve() {
+        // the loot may have been changed since the last search without the solver being told,
+        // and the segments depend on it as much as the stored solutions do
+        storedSolutions.clear();
+        segments.clear();
+        rootCell = -1;
+        rootDepth = -1;
 
-        // the row and column to start searching from. set to -1 by default
-        int startRow = -1;
-        int startCol = -1;
+        // the cell to start searching from. set to -1 by default
+        int start = -1;
 
         // the best path found
-        char[][] bestPathMap = null;
+        char[] bestPathMap = null;
         // the amount of loot the best path contains
         int bestLoot = -1;
 
         // finds the player's position in the map, if it exists
-        for (int i = 0; i < mapLength; ++i) {
-            for (int j = 0; j < mapWidth; ++j) {
-                if (mapGrid[i][j] == CHAR_PLAYER || mapGrid[i][j] == CHAR_PLAYER_CAPITAL) {
-                    startRow = i;
-                    startCol = j;
-                    mainCharPlayer = mapGrid[i][j];
-                }
-            }
+        start = GridScans.findLast(mapGrid, CHAR_PLAYER, CHAR_PLAYER_CAPITAL);
+        if (start != -1) {
+            mainCharPlayer = mapGrid[start];
         }
 
-        long startTime = System.nanoTime();
-
         // if the player is found, find the best path from the player's position
-        if ((startRow != -1) && (startCol != -1)) {
-            bestPathMap = findBestPath(mapGrid, startRow, startCol);
+        if (start != -1) {
+            bestPathMap = findBestPath(mapGrid, start);
             if (bestPathMap != null) {
                 bestLoot = getPathMapLoot(bestPathMap);
             }
         } else {
             // if the player is not found, find the best location to drop in
-            // iterate over all possible positions and try starting from them
-            for (int i = 0; i < mapGrid.length; ++i) {
-                for (int j = 0; j < mapGrid[i].length; ++j) {
-                    // check if the position is valid to drop in
-                    if ((mapLoot[i][j] == 0) && (!shouldJustDie(i, j, 0))) {
-                        // finds a path using i and j as the position
-                        char[][] potentialSolution = findBestPath(mapGrid, i, j);
-                        if (potentialSolution != null) {
-                            int potentialLoot = getPathMapLoot(potentialSolution);
-                            // sets the best path to this path if its loot is higher than the best loot so far
-                            if (potentialLoot > bestLoot) {
-                                bestLoot = potentialLoot;
-                                bestPathMap = potentialSolution;
-                                startRow = i;
-                                startCol = j;
-                            }
-                        }
+            // iterate over all positions without loot that the player can escape from, and try starting from them
+            int[] dropCells = new int[map.size];
+            int dropCount = GridScans.collectDropCells(mapLoot, zone.escapeDeadlines, 0, dropCells);
+            for (int i = 0; i < dropCount; ++i) {
+                int cell = dropCells[i];
+                // finds a path using the cell as the position
+                char[] potentialSolution = findBestPath(mapGrid, cell);
+                if (potentialSolution != null) {
+                    int potentialLoot = getPathMapLoot(potentialSolution);
+                    // sets the best path to this path if its loot is higher than the best loot so far
+                    if (potentialLoot > bestLoot) {
+                        bestLoot = potentialLoot;
+                        bestPathMap = potentialSolution;
+                        start = cell;
                     }
                 }
             }
         }
 
-        long endTime = System.nanoTime();
-        System.out.println("It took " + ((endTime - startTime) / 1000000) + " milliseconds to find the best path");
-
         // best path will be null if no path was found
         if (bestPathMap != null) {
-            System.out.println("Path from (" + startRow + "," + startCol + ") to (" + centreRow + "," + centreCol + ") with " + bestLoot + " item(s) looted");
-            printArray(bestPathMap);
+            return new PathResult(map, start, centre, bestLoot, bestPathMap);
         } else {
-            System.out.println("No path exists");
+            return PathResult.none(map);
         }
-
-        userInput.close();
     }
 
     /**
@@ -174,26 +291,30 @@ public class BattleRoyaleOptimized {
      * Finds and returns the path that contains the highest amount of loot and ends in the centre without dying.
      *
      * @param originalMap A version of the map that will be used as a reference.
-     * @param startRow    The row to start from.
-     * @param startCol    The column to start from.
-     * @return char[][] a 2D array of characters representing a map with a path drawn on it. Will be null if there is no valid path.
+     * @param start       The cell to start from.
+     * @return char[] the cells of a map with a path drawn on it. Will be null if there is no valid path.
      */
-    static char[][] findBestPath(char[][] originalMap, int startRow, int startCol) {
-        storedSolutions.clear();
-
-        List<Position> targets = getValidTargets(startRow, startCol, 0);
-        int[] targeted = new int[targets.size() + 1];
-        List<Position> path = findBestPathHelper(targets, targeted, startRow, startCol, startRow, startCol, new ArrayList<>());
+    char[] findBestPath(char[] originalMap, int start) {
+        return drawPath(originalMap, start, findRoute(start, 0));
+    }
 
+    /**
+     * drawPath
+     * @param originalMap A version of the map that will be used as a reference.
+     * @param start       The cell the path starts from.
+     * @param path        The positions the path moves through after the start, or null if there is no valid path.
+     * @return char[] the cells of a map with the path drawn on it. Will be null if there is no valid path.
+     */
+    char[] drawPath(char[] originalMap, int start, List<Position> path) {
         if (path != null) {
-            char[][] solution = copyArray(originalMap);
+            char[] solution = GameMap.copyArray(originalMap);
             for (Position position : path) {
-                solution[position.row][position.col] = CHAR_VISITED;
+                solution[map.cell(position.row, position.col)] = CHAR_VISITED;
             }
-            solution[startRow][startCol] = mainCharPlayer;
+            solution[start] = mainCharPlayer;
             if (path.size() > 0) {
                 Position last = path.get(path.size() - 1);
-                solution[last.row][last.col] = CHAR_FINISH;
+                solution[map.cell(last.row, last.col)] = CHAR_FINISH;
             }
             return solution;
         } else {
@@ -201,242 +322,722 @@ public class BattleRoyaleOptimized {
         }
     }
 
+    /**
+     * findRoute
+     * Finds the path with the highest amount of loot for solve. Engines that search differently override this.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre. Will be null if there is no valid path.
+     */
+    List<Position> findRoute(int start, int depth) {
+        return resolveRoute(start, depth);
+    }
+
+    /**
+     * findBestRoute
+     * Finds the path with the highest amount of loot from a position part way through the game.
+     * Uses the loot currently on the map, so loot removed from the map by other players is not counted.
+     * Nothing found by earlier searches is kept, so the loot can be changed directly on the map between searches.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre. Will be null if there is no valid path.
+     */
+    List<Position> findBestRoute(int start, int depth) {
+        storedSolutions.clear();
+        segments.clear();
+        rootCell = -1;
+        rootDepth = -1;
+        return resolveRoute(start, depth);
+    }
+
+    /**
+     * resolveRoute
+     * Finds the path with the highest amount of loot like findBestRoute, but keeps the solutions stored by earlier searches.
+     * Stored solutions do not depend on where a search started, so they are reused from any cell and depth.
+     * Loot changes made through applyLootDeltas only remove the stored solutions they affect,
+     * so searching again after a small change only redoes the affected part of the search.
+     * Loot changed any other way is not noticed, so findBestRoute has to be used instead.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre. Will be null if there is no valid path.
+     */
+    List<Position> resolveRoute(int start, int depth) {
+        return resolveRoute(start, depth, Long.MAX_VALUE);
+    }
+
+    /**
+     * resolveRoute
+     * Finds the path with the highest amount of loot like resolveRoute, but gives up once a deadline passes.
+     * Every state solved before the deadline stays stored, so searching again continues where the search stopped.
+     * At least one state is solved and stored even if the deadline has already passed, so repeated searches always finish.
+     *
+     * @param start    The cell to start from.
+     * @param depth    The number of times the boundaries have already shrunk.
+     * @param deadline The System.nanoTime() after which the search gives up.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre.
+     * Will be null if there is no valid path, or if the search gave up, in which case searchAborted is set.
+     */
+    List<Position> resolveRoute(int start, int depth, long deadline) {
+        searchAborted = false;
+        if (depth > maxDepth) {
+            return null;
+        }
+        // the targets depend on where the search starts
+        if ((start != rootCell) || (depth != rootDepth)) {
+            rootCell = start;
+            rootDepth = depth;
+            rootTargets = getValidTargets(start, depth);
+        }
+
+        int[] targeted = new int[rootTargets.length + 1];
+        targeted[0] = depth;
+        targetedKey = 0;
+        searchDeadline = deadline;
+        searchStored = false;
+        MemoEntry best = findBestPathHelper(rootTargets, targeted, start);
+        int[] bestPath = ((best == null) || keepPaths) ? null : rebuildPath(rootTargets, targeted, start, best);
+        searchDeadline = Long.MAX_VALUE;
+
+        if ((best == null) || (best.loot < 0)) {
+            return null;
+        }
+        if (keepPaths) {
+            bestPath = best.path;
+        } else if (bestPath == null) {
+            // the search gave up while solving a dropped solution again
+            return null;
+        }
+        List<Position> path = new ArrayList<>(bestPath.length);
+        for (int cell : bestPath) {
+            path.add(new Position(map.rows[cell], map.cols[cell]));
+        }
+        return path;
+    }
+
+    /**
+     * applyLootDeltas
+     * Changes the loot on some cells and removes only the stored solutions the change can affect.
+     * Loot taken away only affects the solutions whose path goes through it.
+     * Loot added or changed can also improve any solution that could still reach it in time, so those are removed too.
+     *
+     * @param cells  The cells whose loot changes.
+     * @param values The new amount of loot on each cell, from 0 to 9.
+     */
+    void applyLootDeltas(int[] cells, int[] values) {
+        // the changed cells, and whether each change only took loot away
+        boolean[] changed = new boolean[map.size];
+        boolean[] removed = new boolean[map.size];
+        // the cells where loot was added or changed, which can make new paths better
+        int[] improved = new int[cells.length];
+        // the shortest time it takes to loot each improved cell after moving onto it, before or after the change
+        int[] improvedLootTimes = new int[cells.length];
+        int improvedCount = 0;
+
+        // every change is checked first, so a rejected call changes nothing
+        for (int i = 0; i < cells.length; ++i) {
+            if ((values[i] < 0) || (values[i] > 9)) {
+                throw new IllegalArgumentException("Loot must be between 0 and 9");
+            }
+            if ((values[i] > 0) && blocked[cells[i]]) {
+                throw new IllegalArgumentException("Loot cannot be placed on a blocked cell");
+            }
+        }
+        for (int i = 0; i < cells.length; ++i) {
+            int cell = cells[i];
+            int value = values[i];
+            int oldValue = mapLoot[cell];
+            if ((oldValue == value) || (cell == centre)) {
+                continue;
+            }
+
+            mapLoot[cell] = (byte) value;
+            mapGrid[cell] = (value > 0) ? Character.forDigit(value, 10) : '.';
+            changed[cell] = true;
+            if (value == 0) {
+                removed[cell] = true;
+            } else {
+                improved[improvedCount] = cell;
+                improvedLootTimes[improvedCount] = Math.min((oldValue > 1) ? oldValue - 1 : 0, (value > 1) ? value - 1 : 0);
+                ++improvedCount;
+            }
+        }
+
+        // remove the stored solutions that are affected
+        int improvedTotal = improvedCount;
+        storedSolutions.removeIf(entry -> isAffected(entry, changed, improved, improvedLootTimes, improvedTotal));
+        // a segment through the rectangle around a changed cell may no longer be the one with the most loot
+        // detours and segments that could not be walked went around loot that could be anywhere, so they are always found again
+        Iterator<Map.Entry<Long, int[]>> cached = segments.entrySet().iterator();
+        while (cached.hasNext()) {
+            Map.Entry<Long, int[]> entry = cached.next();
+            int from = (int) (entry.getKey() / map.size);
+            int to = (int) (entry.getKey() % map.size);
+            if ((entry.getValue().length != map.distance(from, to)) || crossesAny(from, to, cells, changed)) {
+                cached.remove();
+            }
+        }
+
+        // update the targets, without touching targets that did not change
+        if (rootTargets != null) {
+            int[] targets = Arrays.copyOf(rootTargets, rootTargets.length + improvedCount);
+            int count = 0;
+            for (int target : rootTargets) {
+                if (!changed[target] || (!removed[target] && canLootAndLive(rootCell, target, rootDepth + ((mapLoot[target] > 1) ? mapLoot[target] - 1 : 0)))) {
+                    targets[count++] = target;
+                }
+                changed[target] = false;
+            }
+            // cells that were not targets before are added after the existing targets
+            for (int i = 0; i < improvedCount; ++i) {
+                int cell = improved[i];
+                if (changed[cell] && (cell != rootCell) && canLootAndLive(rootCell, cell, rootDepth + ((mapLoot[cell] > 1) ? mapLoot[cell] - 1 : 0))) {
+                    targets[count++] = cell;
+                }
+                changed[cell] = false;
+            }
+            rootTargets = Arrays.copyOf(targets, count);
+        }
+    }
+
+    /**
+     * blockCells
+     * Stops paths from going through some cells. Any loot on them is removed.
+     * Only removes the stored solutions and path segments that go through the cells.
+     *
+     * @param cells The cells to block.
+     */
+    void blockCells(int[] cells) {
+        boolean[] newlyBlocked = new boolean[map.size];
+        for (int cell : cells) {
+            if (cell == centre) {
+                throw new IllegalArgumentException("The centre cannot be blocked");
+            }
+            newlyBlocked[cell] = !blocked[cell];
+        }
+        // taking the loot away removes the stored solutions through the cells
+        applyLootDeltas(cells, new int[cells.length]);
+
+        storedSolutions.removeIf(entry -> (entry.path != null) && containsAny(entry.path, newlyBlocked));
+        Iterator<int[]> cached = segments.values().iterator();
+        while (cached.hasNext()) {
+            if (containsAny(cached.next(), newlyBlocked)) {
+                cached.remove();
+            }
+        }
+        for (int cell : cells) {
+            blocked[cell] = true;
+        }
+    }
+
+    /**
+     * crossesAny
+     * @param from The cell a segment starts from.
+     * @param to The cell the segment ends on.
+     * @param cells Cells that may have changed.
+     * @param changed Whether each cell of the map has changed.
+     * @return boolean True if a changed cell is inside the rectangle with the segment's cells at its corners.
+     */
+    boolean crossesAny(int from, int to, int[] cells, boolean[] changed) {
+        int minRow = Math.min(map.rows[from], map.rows[to]), maxRow = Math.max(map.rows[from], map.rows[to]);
+        int minCol = Math.min(map.cols[from], map.cols[to]), maxCol = Math.max(map.cols[from], map.cols[to]);
+        for (int cell : cells) {
+            if (changed[cell] && (map.rows[cell] >= minRow) && (map.rows[cell] <= maxRow)
+                    && (map.cols[cell] >= minCol) && (map.cols[cell] <= maxCol)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * containsAny
+     * @param path  The cells of a path.
+     * @param cells Whether each cell of the map is being looked for.
+     * @return boolean True if the path goes through any of the cells being looked for.
+     */
+    static boolean containsAny(int[] path, boolean[] cells) {
+        for (int cell : path) {
+            if (cells[cell]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * isAffected
+     * Checks if a change to the loot can change the stored solution of a state.
+     *
+     * @param entry             The stored solution.
+     * @param changed           Whether the loot of each cell changed.
+     * @param improved          The cells where loot was added or changed.
+     * @param improvedLootTimes The shortest time it takes to loot each improved cell.
+     * @param improvedCount     The number of improved cells.
+     * @return boolean True if the stored solution may no longer be the best.
+     */
+    boolean isAffected(MemoEntry entry, boolean[] changed, int[] improved, int[] improvedLootTimes, int improvedCount) {
+        if ((entry.path != null) && containsAny(entry.path, changed)) {
+            return true;
+        }
+        for (int i = 0; i < improvedCount; ++i) {
+            if (canLootAndLive(entry.cell, improved[i], entry.depth + improvedLootTimes[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * findBestPathHelper
+     * Finds the best way to continue from a cell by choosing the next target, then recursively the targets after it.
+     * A state's best continuation only depends on its cell, its depth and the targets it has taken,
+     * so the solution is stored under a key made of those and reused whenever the same state is reached again.
      *
-     * @param targets A list of positions of loot.
+     * @param targets The cells of loot.
      * @param state   An int array representing the current state.
      *                The first index holds the state's depth.
      *                The following indexes hold 0 if the target at the same index has not been targeted, or 1 if it has.
-     * @param row     The current row.
-     * @param col     The current column.
-     * @param goalRow The row to end the path on.
-     * @param goalCol The column to end the path on.
-     * @param path    The path with the highest amount of loot without the player dying.
-     * @return Map with the path with the highest amount of loot without the player dying.
+     *                Targets collected on the way to another target are only marked in targetedCells.
+     * @param cell    The current cell, which is the start or the last target reached.
+     * @return MemoEntry The path with the highest amount of loot from the cell to the centre without the player dying,
+     * with a null path if there is none. null if the search gave up.
      */
-    static List<Position> findBestPathHelper(List<Position> targets, int[] state, int row, int col, int goalRow, int goalCol, List<Position> path) {
-        // the dynamic programming state is what targets have been visited or not
-        // the state hash is therefore created from the targeted array
-        long targetedKey = zob.hash(state);
-
-        // if the state has been solved before, return the stored solution
-        if (storedSolutions.containsKey(targetedKey)) {
-            return storedSolutions.get(targetedKey);
-        }
+    MemoEntry findBestPathHelper(int[] targets, int[] state, int cell) {
         // current depth is stored in the first index of the state array
         // depth is the amount of times the boundaries have shrunk
         int depth = state[0];
 
-        // if the the target has been reached
-        if ((row == goalRow) && (col == goalCol)) {
-            // if the target was the centre, return a potential path
-            if ((goalRow == centreRow) && (goalCol == centreCol)) {
-                return new ArrayList<>(path);
-            }
+        // the dynamic programming state is the cell, the depth, and what targets have been visited or not
+        // the state hash is therefore created from the targeted cells' keys, the depth's key and the cell's key
+        long stateKey = targetedKey ^ depthKeys[depth] ^ positionKeys[cell];
+
+        // if the state has been solved before, return the stored solution
+        MemoEntry stored = storedSolutions.get(stateKey);
+        if (stored != null) {
+            return stored;
+        }
+
+        // the same cell and targets at another depth is not used to answer this state. reusing an earlier depth's path only works
+        // when it has time to spare, and optimal paths almost never do, so looking such states up cost more than it saved
 
-            int bestLoot = -1;
-            List<Position> bestPath = null;
-
-            // iterate over all targets and target those not yet targeted
-            for (int i = 0; i < targets.size(); ++i) {
-                if (state[i + 1] == 0) {
-                    Position targetPos = targets.get(i);
-                    int targetLoot = mapLoot[targetPos.row][targetPos.col];
-
-                    int nextDepth = depth;
-                    boolean takesTimeToLoot = (targetLoot > 1);
-                    if (takesTimeToLoot) {
-                        // the increase in depth is the length of the path to the target
-                        // however, the target already takes time to loot and it is inside the path to it
-                        // avoid counting both its loot and its existence in the path
-                        nextDepth += targetLoot - 1;
+        // give up if the search is over its deadline
+        // solving a state can mean finding many path segments, so the clock is checked for every state solved
+        if (searchAborted || (searchStored && (searchDeadline != Long.MAX_VALUE) && (System.nanoTime() > searchDeadline))) {
+            searchAborted = true;
+            return null;
+        }
+
+        // the states solved from here on are the work this state's solution saves
+        long workBefore = solvedStates++;
+
+        int bestLoot = -1;
+        int[] bestPath = null;
+        // the first target of the best path and the key of the state after it
+        int bestSuccessor = -1;
+        long bestChildKey = 0;
+
+        // iterate over all targets and target those not yet targeted
+        for (int i = 0; i < targets.length; ++i) {
+            // targets collected on the way to an earlier target are not searched again
+            if ((state[i + 1] == 0) && !targetedCells[targets[i]]) {
+                int target = targets[i];
+                int targetLoot = mapLoot[target];
+
+                int nextDepth = depth;
+                boolean takesTimeToLoot = (targetLoot > 1);
+                if (takesTimeToLoot) {
+                    // the increase in depth is the length of the path to the target
+                    // however, the target already takes time to loot and it is inside the path to it
+                    // avoid counting both its loot and its existence in the path
+                    nextDepth += targetLoot - 1;
+                }
+
+                // if the player can loot the target and live
+                if (canLootAndLive(cell, target, nextDepth)) {
+                    // find a path segment from the current position to the target
+                    int[] segment = getSegment(cell, target);
+                    // the next depth is the depth plus the number of positions in the path
+                    nextDepth += (segment != null) ? segment.length : 0;
+
+                    // the boundaries have shrunk too much and there is no spot out of bounds
+                    // a detour is longer than the distance checked above, so it can reach the target too late to get out
+                    if ((segment == null) || (nextDepth > maxDepth) || shouldJustDie(target, nextDepth)) {
+                        continue;
                     }
 
-                    // if the player can loot the target and live
-                    if (canLootAndLive(row, col, targetPos.row, targetPos.col, nextDepth)) {
-                        // mark this target as having been targeted
+                    int[] finalPath;
+                    int finalLoot;
+                    long childKey = 0;
+                    if (target == centre) {
+                        // the target was the centre, so the segment ends the path
+                        finalPath = segment;
+                        finalLoot = getNewLoot(segment);
+                    } else {
+                        // mark this target as having been targeted, along with the loot collected on the way to it
                         state[i + 1] = 1;
-                        // increase depth by the time it takes to loot the target
+                        int marked = markCollected(segment);
+                        // increase depth by the time it takes to reach and loot the target
                         state[0] = nextDepth;
+                        childKey = targetedKey ^ depthKeys[nextDepth] ^ positionKeys[target];
 
-                        // set a new target and get the resulting path
-                        List<Position> finalPath = findBestPathHelper(targets, state, row, col, targetPos.row, targetPos.col, path);
-
-                        // check if a possible path even exists
-                        if (finalPath != null) {
-                            int finalLoot = getPathLoot(finalPath);
-                            // updates the best path if the potential path's loot is higher than the best loot so far
-                            if (finalLoot > bestLoot) {
-                                bestLoot = finalLoot;
-                                bestPath = finalPath;
-                            }
-                        }
+                        // get the best path from the target
+                        MemoEntry next = findBestPathHelper(targets, state, target);
 
                         // undo marking this target as having been targeted
                         // this avoids having to copy the array to ensure correctness
                         state[i + 1] = 0;
+                        unmarkCollected(marked);
 
                         // undo depth increase by the time it takes to loot the target
                         state[0] = depth;
+
+                        if (next == null) {
+                            // the search gave up, so nothing below this state can be stored
+                            return null;
+                        }
+                        // check if a possible path even exists
+                        if (next.loot < 0) {
+                            continue;
+                        }
+                        // the loot the segment collects is already targeted at the next state, so the two never count the same cell
+                        finalLoot = getNewLoot(segment) + next.loot;
+                        if (keepPaths) {
+                            finalPath = new int[segment.length + next.path.length];
+                            System.arraycopy(segment, 0, finalPath, 0, segment.length);
+                            System.arraycopy(next.path, 0, finalPath, segment.length, next.path.length);
+                        } else {
+                            finalPath = null;
+                        }
+                    }
+
+                    // updates the best path if the potential path's loot is higher than the best loot so far
+                    if (finalLoot > bestLoot) {
+                        bestLoot = finalLoot;
+                        bestPath = finalPath;
+                        bestSuccessor = target;
+                        bestChildKey = childKey;
                     }
                 }
             }
+        }
+
+        // store the solution for this state and return the solution
+        // states with more time left are reached from more places, so they are worth more
+        MemoEntry solution = new MemoEntry(bestPath, bestLoot, cell, depth, bestSuccessor, bestChildKey);
+        storedSolutions.put(stateKey, solution, solvedStates - workBefore, maxDepth - depth + 1);
+        searchStored = true;
+        return solution;
+    }
 
-            // store the solution for this state and return the solution
-            // checks if the solution is already stored, which should theoretically never be the case
-            if (!storedSolutions.containsKey(targetedKey)) {
-                storedSolutions.put(targetedKey, bestPath);
+    /**
+     * rebuildPath
+     * Rebuilds the path of a solution from the first target and next state of each solution along it, for a store that does not keep paths.
+     * A solution along the way that has been dropped from the store is solved again.
+     *
+     * @param targets The cells of loot.
+     * @param state   The state the solution is for, like findBestPathHelper. It is the same again once the path is rebuilt.
+     * @param cell    The cell the solution starts on.
+     * @param entry   The solution.
+     * @return int[] The cells of the path, or null if there is no path or the search gave up while solving a solution again.
+     */
+    int[] rebuildPath(int[] targets, int[] state, int cell, MemoEntry entry) {
+        int depth = state[0];
+        int markedBefore = collectedCount;
+        // the segments of the path, and the targets marked on the way, so the state can be restored
+        List<int[]> parts = new ArrayList<>();
+        List<Integer> markedTargets = new ArrayList<>();
+        int length = 0;
+        while ((entry != null) && (entry.loot >= 0)) {
+            int target = entry.successor;
+            int[] segment = getSegment(cell, target);
+            if (segment == null) {
+                entry = null;
+                break;
             }
-            return bestPath;
-        } else {
-            // the current target has not been reached
+            parts.add(segment);
+            length += segment.length;
+            if (target == centre) {
+                break;
+            }
+            for (int i = 0; i < targets.length; ++i) {
+                if (targets[i] == target) {
+                    state[i + 1] = 1;
+                    markedTargets.add(i);
+                    break;
+                }
+            }
+            markCollected(segment);
+            state[0] += segment.length + Math.max(mapLoot[target] - 1, 0);
+            cell = target;
+            MemoEntry next = storedSolutions.get(entry.childKey);
+            entry = (next != null) ? next : findBestPathHelper(targets, state, cell);
+        }
 
-            // find a path segment from the current position to the target
-            List<Position> lootPath = pathfinder.findPath(row, col, goalRow, goalCol);
+        // undo the marks, the same way findBestPathHelper does after each target
+        for (int i : markedTargets) {
+            state[i + 1] = 0;
+        }
+        unmarkCollected(markedBefore);
+        state[0] = depth;
 
-            if (lootPath != null) {
-                // the path contains the current position, so remove it as it is unnecessary
-                lootPath.remove(lootPath.size() - 1);
+        if ((entry == null) || (entry.loot < 0)) {
+            return null;
+        }
+        int[] path = new int[length];
+        int offset = 0;
+        for (int[] segment : parts) {
+            System.arraycopy(segment, 0, path, offset, segment.length);
+            offset += segment.length;
+        }
+        return path;
+    }
 
-                // the next depth is the current depth plus the number of positions in the path
-                int nextDepth = depth + lootPath.size();
+    /**
+     * getSegment
+     * Gets the cells a shortest path moves through from one cell to another, excluding the cell it starts on.
+     * Of the shortest paths, the one with the most loot is used, so that loot on the way is collected without searching it as a target.
+     * Only single items can be picked up on the way, since any more take time to loot, so the path never passes bigger loot before its end.
+     * Segments only depend on the layout and loot of the map, so each is kept until the loot or the blocked cells it could pass change.
+     *
+     * @param from The cell to start from.
+     * @param to   The cell to end on.
+     * @return int[] The cells of the path in order, ending on the cell to end on. null if the cell cannot be reached.
+     */
+    int[] getSegment(int from, int to) {
+        long key = (long) from * map.size + to;
+        int[] segment = segments.get(key);
+        if (segment == null) {
+            segment = findRichestSegment(from, to);
+            if (segment == null) {
+                // blocked cells or bigger loot cut every path inside the rectangle between the cells, so go around them
+                segment = findDetour(from, to);
+            }
+            segments.put(key, (segment != null) ? segment : UNREACHABLE);
+        }
+        return (segment == UNREACHABLE) ? null : segment;
+    }
 
-                // the boundaries have shrunk too much and there is no spot out of bounds
-                if (nextDepth > maxDepth) {
-                    return null;
+    /**
+     * findDetour
+     * Finds a shortest path between two cells that goes around the blocked cells and bigger loot in its way.
+     * It is only used when no shortest path inside the rectangle between the cells can be walked,
+     * so it searches the whole map breadth first and does not look for the path with the most loot.
+     *
+     * @param from The cell to start from.
+     * @param to   The cell to end on.
+     * @return int[] The cells of the path after the cell to start from, or null if the cell to end on cannot be reached.
+     */
+    int[] findDetour(int from, int to) {
+        // the cell each reached cell was first reached from, or -1 if it has not been reached
+        int[] previous = new int[map.size];
+        Arrays.fill(previous, -1);
+        previous[from] = from;
+        // the cells reached, in the order they were reached
+        int[] queue = new int[map.size];
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+        while ((head < tail) && (previous[to] < 0)) {
+            int cell = queue[head++];
+            // the last move stays on the cell, which never leads anywhere new
+            for (int i = 0; i < GameMap.NEIGHBOURS - 1; ++i) {
+                int next = map.neighbours[cell * GameMap.NEIGHBOURS + i];
+                if ((next == GameMap.NO_NEIGHBOUR) || (previous[next] >= 0) || blocked[next]
+                        || ((next != to) && (mapLoot[next] > 1))) {
+                    continue;
                 }
+                previous[next] = cell;
+                queue[tail++] = next;
+            }
+        }
+        if (previous[to] < 0) {
+            return null;
+        }
+
+        int length = 0;
+        for (int cell = to; cell != from; cell = previous[cell]) {
+            ++length;
+        }
+        int[] segment = new int[length];
+        for (int cell = to; cell != from; cell = previous[cell]) {
+            segment[--length] = cell;
+        }
+        return segment;
+    }
 
-                // add the path segment to the entire path
-                for (int i = lootPath.size() - 1; i >= 0; i--) {
-                    Position pos = lootPath.get(i);
-                    path.add(pos);
+    /**
+     * findRichestSegment
+     * Finds the shortest path with the most loot between two cells that only passes single items before the cell to end on.
+     * Every shortest path stays inside the rectangle with the cells at its corners, only stepping towards the cell to end on,
+     * so the most loot that can reach each cell of the rectangle is found a row at a time from the cells before it.
+     *
+     * @param from The cell to start from.
+     * @param to   The cell to end on.
+     * @return int[] The cells of the path after the cell to start from,
+     * or null if blocked cells and bigger loot cut every path inside the rectangle.
+     */
+    int[] findRichestSegment(int from, int to) {
+        int rowStep = Integer.signum(map.rows[to] - map.rows[from]);
+        int colStep = Integer.signum(map.cols[to] - map.cols[from]);
+        // the size of the rectangle, and the step between cells of the map going along its rows and columns
+        int height = Math.abs(map.rows[to] - map.rows[from]) + 1;
+        int width = Math.abs(map.cols[to] - map.cols[from]) + 1;
+        int rowStride = rowStep * mapWidth;
+
+        // the most loot collected reaching each cell of the rectangle, or -1 if it cannot be reached
+        int[] bestLoot = new int[height * width];
+        for (int i = 0; i < height; ++i) {
+            for (int j = 0; j < width; ++j) {
+                int index = i * width + j;
+                int cell = from + i * rowStride + j * colStep;
+                if (index == 0) {
+                    bestLoot[index] = 0;
+                } else if (blocked[cell] || ((cell != to) && (mapLoot[cell] > 1))) {
+                    // stepping on more than one item means stopping to loot them, which the segment has no time for
+                    bestLoot[index] = -1;
+                } else {
+                    int before = Math.max((i > 0) ? bestLoot[index - width] : -1, (j > 0) ? bestLoot[index - 1] : -1);
+                    bestLoot[index] = (before >= 0) ? before + mapLoot[cell] : -1;
                 }
+            }
+        }
+        if (bestLoot[height * width - 1] < 0) {
+            return null;
+        }
 
-                // update the state's depth
-                state[0] = nextDepth;
+        // walk back from the cell to end on, taking the step with the most loot and the row step when they tie
+        int[] segment = new int[height + width - 2];
+        int i = height - 1, j = width - 1;
+        for (int step = segment.length - 1; step >= 0; --step) {
+            segment[step] = from + i * rowStride + j * colStep;
+            if ((j == 0) || ((i > 0) && (bestLoot[(i - 1) * width + j] >= bestLoot[i * width + j - 1]))) {
+                --i;
+            } else {
+                --j;
+            }
+        }
+        return segment;
+    }
 
-                // get the position the player ends up on after taking the path segment
-                Position endingPos = lootPath.get(0);
-                List<Position> result = findBestPathHelper(targets, state, endingPos.row, endingPos.col, goalRow, goalCol, path);
+    /**
+     * markCollected
+     * Marks the target at the end of a segment and the single items picked up on the way to it as targeted,
+     * so that they are not counted or searched again by the states after it.
+     *
+     * @param segment The cells of a path segment, as found by getSegment.
+     * @return int The number of cells marked before, which unmarkCollected takes to undo the marks.
+     */
+    int markCollected(int[] segment) {
+        int markedBefore = collectedCount;
+        for (int i = 0; i < segment.length; ++i) {
+            int cell = segment[i];
+            // only the target's time to loot is charged, so bigger loot is only collected at the end
+            if (((mapLoot[cell] == 1) || ((i == segment.length - 1) && (mapLoot[cell] > 0))) && !targetedCells[cell]) {
+                targetedCells[cell] = true;
+                targetedKey ^= cellKeys[cell];
+                collectedCells[collectedCount++] = cell;
+            }
+        }
+        return markedBefore;
+    }
 
-                // undo updating the state's depth
-                state[0] = depth;
+    /**
+     * unmarkCollected
+     * @param markedBefore The number returned by the markCollected call to undo. Later calls must be undone first.
+     */
+    void unmarkCollected(int markedBefore) {
+        while (collectedCount > markedBefore) {
+            int cell = collectedCells[--collectedCount];
+            targetedCells[cell] = false;
+            targetedKey ^= cellKeys[cell];
+        }
+    }
 
-                // remove the path segment from the entire path
-                for (int i = 0; i < lootPath.size(); ++i) {
-                    path.remove(path.size() - 1);
-                }
-                return result;
-            } else {
-                // no path was found
-                return null;
+    /**
+     * getNewLoot
+     * Gets the amount of loot a path collects that has not already been targeted, counting each cell once.
+     *
+     * @param path The cells of a path.
+     * @return int The amount of loot the path adds.
+     */
+    int getNewLoot(int[] path) {
+        // a new stamp marks the cells counted by this call, without clearing the marks of earlier calls
+        ++countStamp;
+        int totalLoot = 0;
+        for (int cell : path) {
+            if ((countedStamps[cell] != countStamp) && !targetedCells[cell]) {
+                countedStamps[cell] = countStamp;
+                totalLoot += mapLoot[cell];
             }
         }
+        return totalLoot;
     }
 
     /**
      * getValidTargets
-     * Gets the positions of loot which the player can loot without dying
+     * Gets the cells of loot which the player can loot without dying
      *
-     * @param row   The row the player is on
-     * @param col   The column the player is on
+     * @param cell  The cell the player is on
      * @param depth The number of times the boundaries have shrunk
-     * @return A list of positions of loot that the player can loot without dying
+     * @return The cells of loot that the player can loot without dying, starting with the centre
      */
-    static List<Position> getValidTargets(int row, int col, int depth) {
-        List<Position> targets = new ArrayList<>();
+    int[] getValidTargets(int cell, int depth) {
+        int[] targets = new int[map.size + 1];
         // the centre is always a possible target
-        targets.add(new Position(centreRow, centreCol));
-
-        // iterate over the map and add positions containing loot
-        for (int i = 0; i < mapLength; ++i) {
-            for (int j = 0; j < mapWidth; ++j) {
-                if (mapLoot[i][j] > 0) {
-                    // the time it takes to loot
-                    int lootTime = 0;
-                    if (mapLoot[i][j] > 1) {
-                        lootTime = mapLoot[i][j];
-                    }
-                    if (canLootAndLive(row, col, i, j, depth + lootTime)) {
-                        targets.add(new Position(i, j));
-                    }
-                }
+        targets[0] = centre;
+
+        // add the cells containing loot that can be looted in time, which takes a turn per item when there is more than one
+        int count = GridScans.collectTargets(mapLoot, map.rows, map.cols, zone.escapeDeadlines, map.rows[cell], map.cols[cell], depth, targets, 1);
+        // loot under the player is never on a path, and the state after targeting it would have the same key as the state before
+        for (int i = 1; i < count; ++i) {
+            if (targets[i] == cell) {
+                targets[i] = targets[--count];
+                break;
             }
         }
-        return targets;
+        return Arrays.copyOf(targets, count);
     }
 
     /**
      * canLootAndLive
      * Checks if the player can reach the target position and make it to the centre without dying
      *
-     * @param row     The row of the player's position
-     * @param col     The column of the player's position
-     * @param goalRow The row of the target's position
-     * @param goalCol The column of the target's position
-     * @param depth   The number of times the boundaries have shrunk
+     * @param cell  The cell of the player's position
+     * @param goal  The cell of the target's position
+     * @param depth The number of times the boundaries have shrunk
      * @return boolean, True if the player can reach the target position and go to the centre safely
      */
-    static boolean canLootAndLive(int row, int col, int goalRow, int goalCol, int depth) {
-        int goalRowDist = Math.abs(row - goalRow);
-        int goalColDist = Math.abs(col - goalCol);
-
-        depth += (goalRowDist + goalColDist);
+    boolean canLootAndLive(int cell, int goal, int depth) {
+        depth += map.distance(cell, goal);
 
-        return !shouldJustDie(goalRow, goalCol, depth);
+        return !shouldJustDie(goal, depth);
     }
 
     /**
      * shouldJustDie
      * Checks if the player cannot outrun the boundaries to the centre and will die.
      *
-     * @param playerRow The row the player is on.
-     * @param playerCol The column the player is on.
-     * @param depth     The number of times the boundaries have shrunk.
+     * @param cell  The cell the player is on.
+     * @param depth The number of times the boundaries have shrunk.
      * @return boolean, True if the player will die from the boundaries while trying to reach the centre.
      */
-    static boolean shouldJustDie(int playerRow, int playerCol, int depth) {
-        // the row that the bottom boundary is on
-        int boundBottom = mapLength - depth - 1;
-        // the column that the right boundary is on
-        int boundRight = mapWidth - depth - 1;
-
-        // the distances to the centre row and column
-        int endRowDist = Math.abs(playerRow - centreRow);
-        int endColDist = Math.abs(playerCol - centreCol);
-
-        // the player's distance from the top boundary
-        int boundTopDist = playerRow - depth;
-        // the player's distance from the bottom boundary
-        int boundBottomDist = boundBottom - playerRow;
-        // the player's distance from the left boundary
-        int boundLeftDist = playerCol - depth;
-        // the player's distance from the right boundary
-        int boundRightDist = boundRight - playerCol;
-
-        // checks if it takes more time for the player to reach the centre than for the perpendicular boundaries to close in
-        return (endRowDist > boundLeftDist) || (endRowDist > boundRightDist) || (endColDist > boundTopDist) || (endColDist > boundBottomDist);
+    boolean shouldJustDie(int cell, int depth) {
+        // checks if the depth is past the last depth the player can leave this position and still reach the centre
+        return depth > zone.escapeDeadlines[cell];
     }
 
     /**
      * getPathMapLoot
      * Gets the amount of loot a map with a path contains.
      *
-     * @param map A map with a path drawn on it.
+     * @param pathMap The cells of a map with a path drawn on it.
      * @return int The amount of loot the path contains
      */
-    static int getPathMapLoot(char[][] map) {
-        int totalLoot = 0;
-        // iterates over all loot positions and sums the loot
-        for (int i = 0; i < mapLength; ++i) {
-            for (int j = 0; j < mapWidth; ++j) {
-                if (map[i][j] == CHAR_VISITED || map[i][j] == CHAR_FINISH) {
-                    totalLoot += mapLoot[i][j];
-                }
-            }
-        }
-        return totalLoot;
+    int getPathMapLoot(char[] pathMap) {
+        // sums the loot of all positions in the path
+        return GridScans.sumMarkedLoot(pathMap, mapLoot, CHAR_VISITED, CHAR_FINISH);
     }
 
     /**
@@ -446,101 +1047,18 @@ public class BattleRoyaleOptimized {
      * @param path A list of positions representing the map
      * @return int The amount of loot the path contains
      */
-    static int getPathLoot(List<Position> path) {
-        // keeps track if the position has already been looted
-        boolean[][] looted = new boolean[mapLength][mapWidth];
+    int getPathLoot(List<Position> path) {
+        // keeps track if the cell has already been looted
+        boolean[] looted = new boolean[map.size];
         int totalLoot = 0;
         // iterates over the path's positions and sums the loot
         for (Position position : path) {
-            if (!looted[position.row][position.col]) {
-                looted[position.row][position.col] = true;
-                totalLoot += mapLoot[position.row][position.col];
+            int cell = map.cell(position.row, position.col);
+            if (!looted[cell]) {
+                looted[cell] = true;
+                totalLoot += mapLoot[cell];
             }
         }
         return totalLoot;
     }
-
-    /**
-     * getMapFromFile
-     * Reads a map from a file.
-     *
-     * @param mapFile The file to read.
-     * @return A 2D character array representing the map.
-     * @throws IOException Throws this exception if the file is not found.
-     */
-    static char[][] getMapFromFile(File mapFile) throws IOException {
-        Scanner fileInput = new Scanner(mapFile);
-
-        if (fileInput.hasNextLine()) {
-            // the current line read from the file
-            String line = fileInput.nextLine().replace(" ", "");
-            // the map in string form
-            String mapString = "";
-
-            // the number of rows of the map
-            int rows = 0;
-            // the number of columns in the map
-            int columns = line.length();
-
-            // continues reading map as long as there are more lines and the line is not blank
-            while (!line.isEmpty()) {
-                mapString += line;
-                ++rows;
-                if (fileInput.hasNextLine()) {
-                    line = fileInput.nextLine().replace(" ", "");
-                } else {
-                    line = "";
-                }
-            }
-
-            char[][] map = new char[rows][columns];
-            // fill the char[][] map using the string representation of the map
-            for (int i = 0; i < rows; ++i) {
-                for (int j = 0; j < columns; ++j) {
-                    // transforms 2D indexes to 1D using 'number of rows' * 'length of a row' + 'number of columns'
-                    // 'i' is the number of rows and 'j' is the number of columns
-                    map[i][j] = mapString.charAt(i * columns + j);
-                }
-            }
-
-            fileInput.close();
-            return map;
-        } else {
-            fileInput.close();
-            return null;
-        }
-    }
-
-    /**
-     * copyMap
-     * Copies and returns the given char[][].
-     *
-     * @param array A 2D char array.
-     * @return char[][] A 2D char array that is a copy of the input.
-     */
-    static char[][] copyArray(char[][] array) {
-        char[][] copy = new char[array.length][array[0].length];
-        for (int i = 0; i < array.length; ++i) {
-            for (int j = 0; j < array[0].length; ++j) {
-                copy[i][j] = array[i][j];
-            }
-        }
-        return copy;
-    }
-
-    /**
-     * printArray
-     * Outputs the given char[][]
-     *
-     * @param array A 2D char array
-     */
-    static void printArray(char[][] array) {
-        for (int i = 0; i < array.length; ++i) {
-            for (int j = 0; j < array[0].length; ++j) {
-                System.out.print(array[i][j]);
-            }
-            System.out.println();
-        }
-        System.out.println();
-    }
 }
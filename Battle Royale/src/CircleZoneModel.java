@@ -0,0 +1,80 @@
+/**
+ * [CircleZoneModel.java]
+ * A circular zone that shrinks at a constant rate onto a final position, which does not have to be the centre of the map
+ * At depth 0 the circle covers the entire map and at the maximum depth only the final position is left
+ */
+
+class CircleZoneModel implements ZoneModel {
+    // map dimensions
+    private final int length, width;
+    // the position the circle shrinks onto
+    private final int finalRow, finalCol;
+    // the number of times the circle shrinks
+    private final int maxDepth;
+    // the squared distance from the final position to the furthest corner, which is the squared starting radius
+    private final long startRadiusSquared;
+
+    /**
+     * CircleZoneModel
+     * @param length The number of rows of the map.
+     * @param width The number of columns of the map.
+     * @param finalRow The row the circle shrinks onto.
+     * @param finalCol The column the circle shrinks onto.
+     * @param maxDepth The number of times the circle shrinks.
+     */
+    CircleZoneModel(int length, int width, int finalRow, int finalCol, int maxDepth) {
+        if ((finalRow < 0) || (finalRow >= length) || (finalCol < 0) || (finalCol >= width)) {
+            throw new IllegalArgumentException("The final position must be on the map");
+        }
+        if (maxDepth <= 0) {
+            throw new IllegalArgumentException("The circle must shrink at least once");
+        }
+        this.length = length;
+        this.width = width;
+        this.finalRow = finalRow;
+        this.finalCol = finalCol;
+        this.maxDepth = maxDepth;
+
+        long rowDist = Math.max(finalRow, length - 1 - finalRow);
+        long colDist = Math.max(finalCol, width - 1 - finalCol);
+        startRadiusSquared = rowDist * rowDist + colDist * colDist;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getCentreRow() {
+        return finalRow;
+    }
+
+    @Override
+    public int getCentreCol() {
+        return finalCol;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public boolean isSafe(int row, int col, int depth) {
+        if (depth > maxDepth) {
+            return false;
+        }
+        long rowDist = row - finalRow;
+        long colDist = col - finalCol;
+        long remaining = maxDepth - depth;
+        // the radius at this depth is startRadius * remaining / maxDepth
+        // both sides are squared and multiplied by maxDepth squared to stay in integers
+        return (rowDist * rowDist + colDist * colDist) * maxDepth * maxDepth <= startRadiusSquared * remaining * remaining;
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * [GameMap.java]
+ * A map stored in flat arrays, where each position is a single cell index of 'row' * 'width' + 'column'
+ * Keeps the tiles, the loot and the neighbours of every cell in one place so that both solvers
+ * can walk the map without jagged arrays
+ */
+
+class GameMap {
+    // the number of entries each cell has in the neighbour table
+    static final int NEIGHBOURS = 5;
+    // marks a neighbour that is off the map
+    static final int NO_NEIGHBOUR = -1;
+
+    // map dimensions and the total number of cells
+    final int length, width, size;
+    // the raw character of the inputted map at each cell
+    final char[] tiles;
+    // the amount of loot at each cell
+    final byte[] loot;
+    // the row and column of each cell, so that they never have to be divided out
+    final int[] rows, cols;
+    // the cells reached by each move, NEIGHBOURS entries per cell in the order down, right, up, left, stay
+    // entries are NO_NEIGHBOUR where the move would leave the map
+    final int[] neighbours;
+
+    /**
+     * GameMap
+     * @param length The number of rows of the map.
+     * @param width The number of columns of the map.
+     * @param tiles The characters of the map, one per cell.
+     */
+    GameMap(int length, int width, char[] tiles) {
+        this.length = length;
+        this.width = width;
+        this.size = length * width;
+        this.tiles = tiles;
+        loot = new byte[size];
+        rows = new int[size];
+        cols = new int[size];
+        neighbours = new int[size * NEIGHBOURS];
+
+        // offsets of the moves down, right, up, left and staying still
+        int[] rowMoves = new int[]{1, 0, -1, 0, 0};
+        int[] colMoves = new int[]{0, 1, 0, -1, 0};
+
+        for (int cell = 0; cell < size; ++cell) {
+            rows[cell] = cell / width;
+            cols[cell] = cell % width;
+            if (Character.isDigit(tiles[cell])) {
+                loot[cell] = (byte) Character.getNumericValue(tiles[cell]);
+            }
+            for (int i = 0; i < NEIGHBOURS; ++i) {
+                int nextRow = rows[cell] + rowMoves[i];
+                int nextCol = cols[cell] + colMoves[i];
+                if ((nextRow >= 0) && (nextRow < length) && (nextCol >= 0) && (nextCol < width)) {
+                    neighbours[cell * NEIGHBOURS + i] = nextRow * width + nextCol;
+                } else {
+                    neighbours[cell * NEIGHBOURS + i] = NO_NEIGHBOUR;
+                }
+            }
+        }
+    }
+
+    /**
+     * cell
+     * @param row The row of the position.
+     * @param col The column of the position.
+     * @return int The cell index of the position.
+     */
+    int cell(int row, int col) {
+        return row * width + col;
+    }
+
+    /**
+     * distance
+     * @param from The first cell.
+     * @param to The second cell.
+     * @return int The number of moves between the cells.
+     */
+    int distance(int from, int to) {
+        return Math.abs(rows[from] - rows[to]) + Math.abs(cols[from] - cols[to]);
+    }
+
+    /**
+     * readFromFile
+     * Reads a map from a file.
+     * @param mapFile The file to read.
+     * @return GameMap The map in the file, or null if the file does not contain a map.
+     * @throws IOException Throws this exception if the file is not found.
+     */
+    static GameMap readFromFile(File mapFile) throws IOException {
+        Scanner fileInput = new Scanner(mapFile);
+        // the rows of the map
+        List<String> lines = new ArrayList<>();
+
+        // continues reading map as long as there are more lines and the line is not blank
+        while (fileInput.hasNextLine()) {
+            String line = fileInput.nextLine().replace(" ", "");
+            if (line.isEmpty()) {
+                break;
+            }
+            lines.add(line);
+        }
+
+        fileInput.close();
+        if (lines.isEmpty()) {
+            return null;
+        }
+        return fromRows(lines);
+    }
+
+    /**
+     * fromRows
+     * Builds a map from its rows, with the spaces between tiles already removed.
+     * @param lines The rows of the map. Every row must be the same length.
+     * @return GameMap The map.
+     */
+    static GameMap fromRows(List<String> lines) {
+        // the number of rows and columns of the map
+        int rows = lines.size();
+        int columns = lines.get(0).length();
+        if (columns == 0) {
+            throw new IllegalArgumentException("The map has no columns");
+        }
+
+        // transforms 2D indexes to 1D using 'number of rows' * 'length of a row' + 'number of columns'
+        char[] tiles = new char[rows * columns];
+        for (int i = 0; i < rows; ++i) {
+            String line = lines.get(i);
+            if (line.length() != columns) {
+                throw new IllegalArgumentException("Row " + i + " has " + line.length() + " columns instead of " + columns);
+            }
+            line.getChars(0, columns, tiles, i * columns);
+        }
+        return new GameMap(rows, columns, tiles);
+    }
+
+    /**
+     * fromCompact
+     * Builds a map from its compact form, 'rows'x'columns':'tiles', where the tiles are listed row by row without separators.
+     * @param compact The compact form of the map.
+     * @return GameMap The map.
+     */
+    static GameMap fromCompact(String compact) {
+        int separator = compact.indexOf(':');
+        int times = compact.indexOf('x');
+        if ((separator < 0) || (times < 0) || (times > separator)) {
+            throw new IllegalArgumentException("A compact map must start with 'rows'x'columns':");
+        }
+
+        int rows;
+        int columns;
+        try {
+            rows = Integer.parseInt(compact.substring(0, times));
+            columns = Integer.parseInt(compact.substring(times + 1, separator));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The dimensions of a compact map must be numbers");
+        }
+        if ((rows <= 0) || (columns <= 0) || ((long) rows * columns != compact.length() - separator - 1)) {
+            throw new IllegalArgumentException("A " + rows + "x" + columns + " map needs " + ((long) rows * columns) + " tiles");
+        }
+
+        char[] tiles = new char[rows * columns];
+        compact.getChars(separator + 1, compact.length(), tiles, 0);
+        return new GameMap(rows, columns, tiles);
+    }
+
+    /**
+     * toCompact
+     * @return String The compact form of the map, which is the same for any two maps with the same tiles.
+     */
+    String toCompact() {
+        return length + "x" + width + ":" + new String(tiles);
+    }
+
+    /**
+     * copyArray
+     * Copies and returns the given char[].
+     * @param array A char array.
+     * @return char[] A char array that is a copy of the input.
+     */
+    static char[] copyArray(char[] array) {
+        char[] copy = new char[array.length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * copyArray
+     * Copies and returns the given boolean[].
+     * @param array A boolean array.
+     * @return boolean[] A boolean array that is a copy of the input.
+     */
+    static boolean[] copyArray(boolean[] array) {
+        boolean[] copy = new boolean[array.length];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    /**
+     * formatArray
+     * Lays out the given cells as rows of the map.
+     * @param array A char array with one entry per cell.
+     * @return String The rows of the map, each ending in a line separator.
+     */
+    String formatArray(char[] array) {
+        StringBuilder output = new StringBuilder(size + length * System.lineSeparator().length());
+        for (int i = 0; i < length; ++i) {
+            output.append(array, i * width, width);
+            output.append(System.lineSeparator());
+        }
+        return output.toString();
+    }
+
+    /**
+     * printArray
+     * Outputs the given cells as rows of the map.
+     * @param array A char array with one entry per cell.
+     */
+    void printArray(char[] array) {
+        System.out.println(formatArray(array));
+    }
+}
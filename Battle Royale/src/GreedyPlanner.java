@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * [GreedyPlanner.java]
+ * Sends each player to the closest loot it can still take and survive, then to the centre
+ * Cheap enough to run for every player of many matches
+ */
+
+class GreedyPlanner implements AgentPlanner {
+    // the loot cell each player is heading for, or -1 if the player has not chosen one
+    private final int[] targets;
+    // the match the targets were chosen in
+    private MatchSimulation plannedMatch;
+    // the cells that held loot when the match started
+    private int[] lootCells;
+
+    /**
+     * GreedyPlanner
+     * @param playerCount The number of players this planner can plan for.
+     */
+    GreedyPlanner(int playerCount) {
+        targets = new int[playerCount];
+    }
+
+    @Override
+    public int nextCell(MatchSimulation match, int player) {
+        if (plannedMatch != match) {
+            plannedMatch = match;
+            lootCells = findLootCells(match);
+            Arrays.fill(targets, -1);
+        }
+
+        int cell = match.cells[player];
+        int target = targets[player];
+        // choose a new target once the old one has been taken, by this player or another
+        if ((target == -1) || ((match.loot[target] == 0) && (target != match.centre))) {
+            target = chooseTarget(match, cell);
+            targets[player] = target;
+        }
+        return match.stepTowards(cell, target);
+    }
+
+    /**
+     * chooseTarget
+     * Finds the closest loot that can be looted with enough time left to reach the centre.
+     *
+     * @param match The match.
+     * @param cell The cell the player is on.
+     * @return int The cell of the loot, or the centre if no loot is worth the risk.
+     */
+    private int chooseTarget(MatchSimulation match, int cell) {
+        int best = match.centre;
+        int bestDistance = Integer.MAX_VALUE;
+
+        for (int lootCell : lootCells) {
+            int value = match.loot[lootCell];
+            if (value > 0) {
+                int distance = match.map.distance(cell, lootCell);
+                // the tick the player would leave the loot, the same check as canLootAndLive
+                int leaveTick = match.tick + distance + ((value > 1) ? value - 1 : 0);
+                if ((distance < bestDistance) && (leaveTick <= match.zone.escapeDeadlines[lootCell])) {
+                    best = lootCell;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * findLootCells
+     * @param match The match.
+     * @return int[] The cells of the match that hold loot.
+     */
+    private static int[] findLootCells(MatchSimulation match) {
+        int count = 0;
+        for (int cell = 0; cell < match.map.size; ++cell) {
+            if (match.loot[cell] > 0) {
+                ++count;
+            }
+        }
+        int[] cells = new int[count];
+        count = 0;
+        for (int cell = 0; cell < match.map.size; ++cell) {
+            if (match.loot[cell] > 0) {
+                cells[count++] = cell;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * [GridScans.java]
+ * Scans over the cells of a map's flat arrays
+ * The scans that have to visit every cell are branch-free scalar loops: each cell's test is turned into a 0 or 1 with sign bit arithmetic,
+ * and matching cells are kept by always writing and only sometimes advancing, so the loops never mispredict on random maps
+ * The project targets Java 8, which has no Vector API, so nothing here is written for SIMD instructions
+ * findLast can stop at its first match, so it is a plain loop that does
+ */
+
+final class GridScans {
+    /**
+     * GridScans
+     * Only has static scans.
+     */
+    private GridScans() {
+    }
+
+    /**
+     * main
+     * Times each scan on a generated map
+     *
+     * @param args Optionally the side length of the map, and the seed for the loot
+     */
+    public static void main(String[] args) {
+        int side = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        Random random = new Random((args.length > 1) ? Long.parseLong(args[1]) : 0);
+        char[] tiles = new char[side * side];
+        for (int cell = 0; cell < tiles.length; ++cell) {
+            tiles[cell] = (random.nextInt(100) < 5) ? (char) ('1' + random.nextInt(9)) : '.';
+        }
+        tiles[tiles.length / 3] = BattleRoyaleOptimized.CHAR_PLAYER;
+        GameMap map = new GameMap(side, side, tiles);
+        ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(side, side));
+        // a quarter of the cells marked as a path
+        char[] pathMap = GameMap.copyArray(tiles);
+        for (int cell = 0; cell < pathMap.length; ++cell) {
+            if (random.nextInt(4) == 0) {
+                pathMap[cell] = BattleRoyaleOptimized.CHAR_VISITED;
+            }
+        }
+        int[] cells = new int[map.size + 1];
+
+        // the fastest of many rounds, so that the JIT compiler has compiled the scans
+        long[] bestTimes = new long[4];
+        Arrays.fill(bestTimes, Long.MAX_VALUE);
+        int[] results = new int[4];
+        for (int round = 0; round < 200; ++round) {
+            long startTime = System.nanoTime();
+            results[0] = findLast(tiles, BattleRoyaleOptimized.CHAR_PLAYER, BattleRoyaleOptimized.CHAR_PLAYER_CAPITAL);
+            long endTime = System.nanoTime();
+            bestTimes[0] = Math.min(bestTimes[0], endTime - startTime);
+
+            startTime = endTime;
+            results[1] = sumMarkedLoot(pathMap, map.loot, BattleRoyaleOptimized.CHAR_VISITED, BattleRoyaleOptimized.CHAR_FINISH);
+            endTime = System.nanoTime();
+            bestTimes[1] = Math.min(bestTimes[1], endTime - startTime);
+
+            startTime = endTime;
+            results[2] = collectTargets(map.loot, map.rows, map.cols, zone.escapeDeadlines, zone.centreRow, zone.centreCol, 0, cells, 0);
+            endTime = System.nanoTime();
+            bestTimes[2] = Math.min(bestTimes[2], endTime - startTime);
+
+            startTime = endTime;
+            results[3] = collectDropCells(map.loot, zone.escapeDeadlines, 0, cells);
+            endTime = System.nanoTime();
+            bestTimes[3] = Math.min(bestTimes[3], endTime - startTime);
+        }
+
+        System.out.println(side + "x" + side + " map, fastest times in microseconds");
+        System.out.println("Player at cell " + results[0] + ": " + (bestTimes[0] / 1000));
+        System.out.println(results[1] + " loot on path cells: " + (bestTimes[1] / 1000));
+        System.out.println(results[2] + " targets from the centre: " + (bestTimes[2] / 1000));
+        System.out.println(results[3] + " cells to drop in on: " + (bestTimes[3] / 1000));
+    }
+
+    /**
+     * findLast
+     * @param tiles The characters of a map, one per cell.
+     * @param first A character to look for.
+     * @param second Another character to look for.
+     * @return int The last cell holding either character, or -1 if there is none.
+     */
+    static int findLast(char[] tiles, char first, char second) {
+        // searching from the end stops at the first match, and the branch only goes the other way once
+        for (int cell = tiles.length - 1; cell >= 0; --cell) {
+            if ((tiles[cell] == first) || (tiles[cell] == second)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * sumMarkedLoot
+     * @param pathMap The cells of a map with a path drawn on it.
+     * @param loot The amount of loot at each cell.
+     * @param mark A character marking a cell of the path.
+     * @param otherMark Another character marking a cell of the path.
+     * @return int The amount of loot on cells marked with either character.
+     */
+    static int sumMarkedLoot(char[] pathMap, byte[] loot, char mark, char otherMark) {
+        int totalLoot = 0;
+        for (int cell = 0; cell < pathMap.length; ++cell) {
+            int marked = isZero(pathMap[cell] ^ mark) | isZero(pathMap[cell] ^ otherMark);
+            totalLoot += loot[cell] & -marked;
+        }
+        return totalLoot;
+    }
+
+    /**
+     * collectTargets
+     * Finds the cells of loot the player can reach, loot, and still escape to the centre from,
+     * by the same rule as BattleRoyaleOptimized.getValidTargets.
+     *
+     * @param loot The amount of loot at each cell.
+     * @param rows The row of each cell.
+     * @param cols The column of each cell.
+     * @param escapeDeadlines The last depth the player can leave each cell and still reach the centre.
+     * @param row The row of the player.
+     * @param col The column of the player.
+     * @param depth The number of times the boundaries have shrunk.
+     * @param targets Where the cells are written, from index count onwards. Must have room for every cell of the map after count.
+     * @param count The number of entries of targets already used.
+     * @return int The number of entries of targets used after adding the cells, which are in increasing order.
+     */
+    static int collectTargets(byte[] loot, int[] rows, int[] cols, int[] escapeDeadlines, int row, int col, int depth,
+                              int[] targets, int count) {
+        for (int cell = 0; cell < loot.length; ++cell) {
+            int amount = loot[cell];
+            // looting takes a turn per item when there is more than one item, one of which is the move onto the cell
+            int lootTime = (amount - 1) & -isNegative(1 - amount);
+            int slack = escapeDeadlines[cell] - depth - lootTime - Math.abs(rows[cell] - row) - Math.abs(cols[cell] - col);
+            targets[count] = cell;
+            count += isNegative(~slack & -amount);
+        }
+        return count;
+    }
+
+    /**
+     * collectDropCells
+     * @param loot The amount of loot at each cell.
+     * @param escapeDeadlines The last depth the player can leave each cell and still reach the centre.
+     * @param depth The number of times the boundaries have shrunk.
+     * @param cells Where the cells are written. Must have room for every cell of the map.
+     * @return int The number of cells without loot that the player can still escape from at the depth, written to cells in increasing order.
+     */
+    static int collectDropCells(byte[] loot, int[] escapeDeadlines, int depth, int[] cells) {
+        int count = 0;
+        for (int cell = 0; cell < loot.length; ++cell) {
+            cells[count] = cell;
+            count += isZero(loot[cell]) & isNegative(~(escapeDeadlines[cell] - depth));
+        }
+        return count;
+    }
+
+    /**
+     * isZero
+     * @param value A number.
+     * @return int 1 if the number is 0, otherwise 0.
+     */
+    private static int isZero(int value) {
+        return (~value & (value - 1)) >>> 31;
+    }
+
+    /**
+     * isNegative
+     * @param value A number.
+     * @return int 1 if the number is negative, otherwise 0.
+     */
+    private static int isNegative(int value) {
+        return value >>> 31;
+    }
+}
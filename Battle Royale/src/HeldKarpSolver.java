@@ -0,0 +1,422 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * [HeldKarpSolver.java]
+ * Finds the best path by dynamic programming over every set of targets, which is fastest on maps with few targets
+ * For each set of looted targets and the target looted last, it keeps the earliest depth the set can be looted by, in flat arrays indexed by bitmask
+ * Looting earlier never hurts since the zone only sets deadlines, so the earliest depth is all a set needs to keep
+ * Searches with more targets than the arrays can hold are passed to the BattleRoyaleOptimized search instead
+ * A set holds every target the path has collected, including those picked up on the way to another, so it is scored the same way as the target search
+ */
+
+class HeldKarpSolver extends BattleRoyaleOptimized {
+    // CONSTANTS BEGIN
+
+    // the most targets searched by sets when none is given. the arrays take 2^targets * (targets + 4) bytes
+    static final int DEFAULT_MAX_TARGETS = 22;
+    // the most targets the arrays can be indexed by
+    static final int LIMIT_TARGETS = 26;
+    // the depth of a set that has not been reached. depths are stored in bytes
+    static final byte UNREACHED = Byte.MAX_VALUE;
+
+    // CONSTANTS END
+
+    // the most targets searched by sets
+    final int maxTargets;
+    // the number of searches done by sets, and the number passed to the BattleRoyaleOptimized search
+    int subsetSearches, fallbackSearches;
+
+    /**
+     * HeldKarpSolver
+     * @param map The map to solve.
+     * @param zone The compiled zone of the map.
+     */
+    HeldKarpSolver(GameMap map, ZoneGrid zone) {
+        this(map, zone, DEFAULT_MAX_TARGETS);
+    }
+
+    /**
+     * HeldKarpSolver
+     * @param map The map to solve.
+     * @param zone The compiled zone of the map.
+     * @param maxTargets The most targets searched by sets, at most LIMIT_TARGETS.
+     */
+    HeldKarpSolver(GameMap map, ZoneGrid zone, int maxTargets) {
+        super(map, zone);
+        if ((maxTargets < 0) || (maxTargets > LIMIT_TARGETS)) {
+            throw new IllegalArgumentException("The most targets must be between 0 and " + LIMIT_TARGETS);
+        }
+        this.maxTargets = maxTargets;
+    }
+
+    /**
+     * main
+     * Solves a map with both this search and the BattleRoyaleOptimized search, and checks that they collect the same loot
+     *
+     * @param args Optionally the map file, or --check followed optionally by a number of generated maps to check instead
+     * @throws IOException Throws this exception if the map file cannot be read
+     * @throws IllegalStateException Throws this exception if the searches collect different loot
+     */
+    public static void main(String[] args) throws IOException {
+        if ((args.length > 0) && args[0].equals("--check")) {
+            int count = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+            Random random = new Random(0);
+            for (int i = 0; i < count; ++i) {
+                GameMap map = generateCheckMap(random);
+                compare(map, ZoneGrid.compile(new SquareZoneModel(map.length, map.width)), "map " + i);
+            }
+            System.out.println("The engines agree on " + count + " generated maps");
+            return;
+        }
+
+        GameMap map = GameMap.readFromFile(new File((args.length > 0) ? args[0] : "map.txt"));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(map.length, map.width));
+
+        PathResult result = compare(map, zone, (args.length > 0) ? args[0] : "map.txt");
+        System.out.println("The engines agree");
+        System.out.print(result);
+    }
+
+    /**
+     * generateCheckMap
+     * Generates a dense map of mostly single items, where the most loot is picked up on the way to targets,
+     * for checking that engines agree.
+     *
+     * @param random The generator of the map. The same seed always gives the same maps.
+     * @return GameMap A square map from 9x9 to 17x17, with the player close enough to the centre to have time for some loot.
+     */
+    static GameMap generateCheckMap(Random random) {
+        int side = 9 + 2 * random.nextInt(5);
+        char[] tiles = new char[side * side];
+        for (int cell = 0; cell < tiles.length; ++cell) {
+            int roll = random.nextInt(100);
+            tiles[cell] = (roll < 20) ? '1' : (roll < 25) ? (char) ('2' + random.nextInt(8)) : '.';
+        }
+        int centre = (side / 2) * side + side / 2;
+        tiles[centre] = '.';
+        int player;
+        do {
+            player = (side / 4 + random.nextInt(side / 2 + 1)) * side + side / 4 + random.nextInt(side / 2 + 1);
+        } while (player == centre);
+        tiles[player] = CHAR_PLAYER_CAPITAL;
+        return new GameMap(side, side, tiles);
+    }
+
+    /**
+     * compare
+     * Solves a map with both this search and the BattleRoyaleOptimized search, printing how long each took.
+     *
+     * @param map The map to solve.
+     * @param zone The compiled zone of the map.
+     * @param name The name of the map, used in the messages.
+     * @return PathResult The path found by the search by sets.
+     * @throws IllegalStateException Throws this exception if the searches collect different loot
+     */
+    private static PathResult compare(GameMap map, ZoneGrid zone, String name) {
+        HeldKarpSolver subsets = new HeldKarpSolver(map, zone);
+        long startTime = System.nanoTime();
+        PathResult subsetResult = subsets.solve();
+        long subsetTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        PathResult searchResult = new BattleRoyaleOptimized(map, zone).solve();
+        long searchTime = System.nanoTime() - startTime;
+
+        System.out.println(name + ": sets of targets: " + subsetResult.loot + " item(s) of loot in " + (subsetTime / 1000000) + " milliseconds, "
+                + subsets.subsetSearches + " search(es) by sets and " + subsets.fallbackSearches + " passed on");
+        System.out.println(name + ": target search: " + searchResult.loot + " item(s) of loot in " + (searchTime / 1000000) + " milliseconds");
+        if (subsetResult.loot != searchResult.loot) {
+            throw new IllegalStateException("The engines disagree on " + name);
+        }
+        return subsetResult;
+    }
+
+    @Override
+    List<Position> findRoute(int start, int depth) {
+        if (depth > maxDepth) {
+            return null;
+        }
+        // the centre is always the first target, and ends the path rather than being looted along it
+        int[] validTargets = getValidTargets(start, depth);
+        int[] targets = new int[validTargets.length];
+        int targetCount = 0;
+        for (int target : validTargets) {
+            if (target != centre) {
+                targets[targetCount++] = target;
+            }
+        }
+        if ((targetCount > maxTargets) || (maxDepth >= UNREACHED)) {
+            ++fallbackSearches;
+            return super.findRoute(start, depth);
+        }
+        ++subsetSearches;
+        return findSubsetRoute(start, depth, Arrays.copyOf(targets, targetCount));
+    }
+
+    /**
+     * findSubsetRoute
+     * Finds the set of targets with the most loot that can be looted in some order and still reach the centre, and the order to loot them in.
+     * Moving to a target follows the same rules as BattleRoyaleOptimized.findBestPathHelper,
+     * so the single items picked up on the way to a target join the set along with the target, and are not moved to again.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @param targets The cells of loot that can be reached, not including the centre, in increasing order.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre. Will be null if there is no valid path.
+     */
+    private List<Position> findSubsetRoute(int start, int depth, int[] targets) {
+        int k = targets.length;
+        // the start is node k, and each target is the node of its index
+        int[] nodeCells = Arrays.copyOf(targets, k + 1);
+        nodeCells[k] = start;
+
+        // the length of the segment from each node to each target and to the centre. -1 if it cannot be walked
+        int[] segmentLengths = new int[(k + 1) * k];
+        int[] centreLengths = new int[k + 1];
+        // the targets each of those segments collects, as a set
+        int[] segmentSets = new int[(k + 1) * k];
+        int[] centreSets = new int[k + 1];
+        for (int from = 0; from <= k; ++from) {
+            for (int to = 0; to < k; ++to) {
+                int[] segment = (from != to) ? getSegment(nodeCells[from], targets[to]) : null;
+                segmentLengths[from * k + to] = (segment != null) ? segment.length : -1;
+                segmentSets[from * k + to] = (segment != null) ? getCollectedSet(segment, targets) : 0;
+            }
+            int[] segment = getSegment(nodeCells[from], centre);
+            centreLengths[from] = (segment != null) ? segment.length : -1;
+            centreSets[from] = (segment != null) ? getCollectedSet(segment, targets) : 0;
+        }
+
+        // the earliest depth each set of targets can be looted by, ending on each target. UNREACHED if it cannot be
+        byte[] depths = new byte[(1 << k) * k];
+        Arrays.fill(depths, UNREACHED);
+        // the loot of each set of targets that has been reached
+        int[] setLoot = new int[1 << k];
+        // whether each set has been added to a layer
+        long[] seen = new long[Math.max((1 << k) >>> 6, 1)];
+        // the sets that have been reached, by their number of targets
+        // a move adds the target and anything picked up on the way, so it always leads to a set in a later layer
+        int[][] layers = new int[k + 1][];
+        int[] layerSizes = new int[k + 1];
+
+        // the best set found and the target it ends on. the loot also counts the targets picked up on the way to the centre
+        int bestLoot = (finishDepth(k, depth, nodeCells, centreLengths) >= 0) ? getSetLoot(centreSets[k], targets) : -1;
+        int bestSet = 0, bestLast = -1;
+
+        for (int size = 0; size <= k; ++size) {
+            // the start is the only state with no targets
+            int count = (size == 0) ? 1 : layerSizes[size];
+            for (int l = 0; l < count; ++l) {
+                int set = (size == 0) ? 0 : layers[size][l];
+                for (int last = (size == 0) ? k : 0; last <= k; ++last) {
+                    int lastDepth;
+                    if (size == 0) {
+                        lastDepth = depth;
+                    } else if ((last == k) || ((set & (1 << last)) == 0) || (depths[set * k + last] == UNREACHED)) {
+                        continue;
+                    } else {
+                        lastDepth = depths[set * k + last];
+                        // the path can end here by going to the centre
+                        int finishLoot = setLoot[set] + getSetLoot(centreSets[last] & ~set, targets);
+                        if ((finishLoot > bestLoot) && (finishDepth(last, lastDepth, nodeCells, centreLengths) >= 0)) {
+                            bestLoot = finishLoot;
+                            bestSet = set;
+                            bestLast = last;
+                        }
+                    }
+                    // or go on to another target
+                    for (int t = 0; t < k; ++t) {
+                        if ((set & (1 << t)) != 0) {
+                            continue;
+                        }
+                        int nextDepth = moveDepth(last, t, lastDepth, nodeCells, targets, segmentLengths);
+                        if (nextDepth < 0) {
+                            continue;
+                        }
+                        int nextSet = set | segmentSets[last * k + t];
+                        if (nextDepth < depths[nextSet * k + t]) {
+                            depths[nextSet * k + t] = (byte) nextDepth;
+                        }
+                        if ((seen[nextSet >>> 6] & (1L << nextSet)) == 0) {
+                            seen[nextSet >>> 6] |= 1L << nextSet;
+                            setLoot[nextSet] = setLoot[set] + getSetLoot(nextSet & ~set, targets);
+                            int nextSize = Integer.bitCount(nextSet);
+                            if (layers[nextSize] == null) {
+                                layers[nextSize] = new int[k];
+                            } else if (layerSizes[nextSize] == layers[nextSize].length) {
+                                layers[nextSize] = Arrays.copyOf(layers[nextSize], layerSizes[nextSize] * 2);
+                            }
+                            layers[nextSize][layerSizes[nextSize]++] = nextSet;
+                        }
+                    }
+                }
+            }
+            // the layer is finished with, since no later move leads back to it
+            layers[size] = null;
+        }
+
+        if (bestLoot < 0) {
+            return null;
+        }
+        return buildRoute(start, depth, targets, nodeCells, segmentLengths, segmentSets, depths, bestSet, bestLast);
+    }
+
+    /**
+     * getCollectedSet
+     * @param segment The cells of a path segment.
+     * @param targets The cells of the targets.
+     * @return int The set of targets the segment collects, by the rules of BattleRoyaleOptimized.markCollected.
+     * Loot on the way that is not a target is only on segments that cannot be walked in time, so it is left out.
+     */
+    private int getCollectedSet(int[] segment, int[] targets) {
+        int set = 0;
+        for (int i = 0; i < segment.length; ++i) {
+            int cell = segment[i];
+            if ((mapLoot[cell] == 1) || ((i == segment.length - 1) && (mapLoot[cell] > 0))) {
+                int index = Arrays.binarySearch(targets, cell);
+                if (index >= 0) {
+                    set |= 1 << index;
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * getSetLoot
+     * @param set A set of targets.
+     * @param targets The cells of the targets.
+     * @return int The loot of the targets in the set.
+     */
+    private int getSetLoot(int set, int[] targets) {
+        int loot = 0;
+        for (; set != 0; set &= set - 1) {
+            loot += mapLoot[targets[Integer.numberOfTrailingZeros(set)]];
+        }
+        return loot;
+    }
+
+    /**
+     * moveDepth
+     * @param from The node to move from.
+     * @param to The index of the target to move to.
+     * @param depth The depth the move starts at.
+     * @param nodeCells The cell of each node.
+     * @param targets The cells of the targets.
+     * @param segmentLengths The length of the segment from each node to each target.
+     * @return int The depth after reaching and looting the target, or -1 if the player cannot loot it and live.
+     */
+    private int moveDepth(int from, int to, int depth, int[] nodeCells, int[] targets, int[] segmentLengths) {
+        int target = targets[to];
+        int nextDepth = depth + ((mapLoot[target] > 1) ? mapLoot[target] - 1 : 0);
+        int length = segmentLengths[from * targets.length + to];
+        if ((length < 0) || !canLootAndLive(nodeCells[from], target, nextDepth)) {
+            return -1;
+        }
+        nextDepth += length;
+        // a detour can reach the target too late to get out, even though its distance did not
+        return ((nextDepth <= maxDepth) && !shouldJustDie(target, nextDepth)) ? nextDepth : -1;
+    }
+
+    /**
+     * finishDepth
+     * @param from The node to move from.
+     * @param depth The depth the move starts at.
+     * @param nodeCells The cell of each node.
+     * @param centreLengths The length of the segment from each node to the centre.
+     * @return int The depth the centre is reached at, or -1 if it cannot be reached in time.
+     */
+    private int finishDepth(int from, int depth, int[] nodeCells, int[] centreLengths) {
+        int nextDepth = depth + ((mapLoot[centre] > 1) ? mapLoot[centre] - 1 : 0);
+        if ((centreLengths[from] < 0) || !canLootAndLive(nodeCells[from], centre, nextDepth)) {
+            return -1;
+        }
+        nextDepth += centreLengths[from];
+        return ((nextDepth <= maxDepth) && !shouldJustDie(centre, nextDepth)) ? nextDepth : -1;
+    }
+
+    /**
+     * buildRoute
+     * Works backwards from the best set to find the order its targets were looted in, and joins the segments between them.
+     * Each step back finds a target and a set it could end on that the segment to the last target turns into the set,
+     * reaching the last target at exactly its earliest depth. The set before may already hold some of the targets the segment collects.
+     *
+     * @param start The cell the path starts on.
+     * @param depth The depth the path starts at.
+     * @param targets The cells of the targets.
+     * @param nodeCells The cell of each node.
+     * @param segmentLengths The length of the segment from each node to each target.
+     * @param segmentSets The targets collected by the segment from each node to each target.
+     * @param depths The earliest depth of each set ending on each target.
+     * @param set The best set.
+     * @param last The target the best set ends on, or -1 if the best path goes straight to the centre.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre.
+     */
+    private List<Position> buildRoute(int start, int depth, int[] targets, int[] nodeCells, int[] segmentLengths,
+                                      int[] segmentSets, byte[] depths, int set, int last) {
+        int k = targets.length;
+        // the targets moved to, in reverse order
+        List<Integer> order = new ArrayList<>();
+        while (last >= 0) {
+            order.add(last);
+            int lastDepth = depths[set * k + last];
+            int previous = -1, previousSet = 0;
+            if ((set == segmentSets[k * k + last]) && (moveDepth(k, last, depth, nodeCells, targets, segmentLengths) == lastDepth)) {
+                previous = k;
+            }
+            for (int p = 0; (p < k) && (previous < 0); ++p) {
+                int collected = segmentSets[p * k + last];
+                if (((set & (1 << p)) == 0) || ((set & collected) != collected)) {
+                    continue;
+                }
+                // the targets the segment collects other than the last one may or may not have been in the set before
+                int optional = collected & ~(1 << last);
+                int required = set & ~collected;
+                for (int extra = optional; ; extra = (extra - 1) & optional) {
+                    int candidate = required | extra;
+                    int previousDepth = ((candidate & (1 << p)) != 0) ? depths[candidate * k + p] : UNREACHED;
+                    if ((previousDepth != UNREACHED) && (moveDepth(p, last, previousDepth, nodeCells, targets, segmentLengths) == lastDepth)) {
+                        previous = p;
+                        previousSet = candidate;
+                        break;
+                    }
+                    if (extra == 0) {
+                        break;
+                    }
+                }
+            }
+            set = previousSet;
+            last = (previous == k) ? -1 : previous;
+        }
+
+        List<Position> path = new ArrayList<>();
+        int from = start;
+        for (int i = order.size() - 1; i >= 0; --i) {
+            int target = targets[order.get(i)];
+            appendSegment(path, getSegment(from, target));
+            from = target;
+        }
+        appendSegment(path, getSegment(from, centre));
+        return path;
+    }
+
+    /**
+     * appendSegment
+     * @param path The positions of the path so far.
+     * @param segment The cells to add to the path.
+     */
+    private void appendSegment(List<Position> path, int[] segment) {
+        for (int cell : segment) {
+            path.add(new Position(map.rows[cell], map.cols[cell]));
+        }
+    }
+}
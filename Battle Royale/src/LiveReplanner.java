@@ -0,0 +1,301 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * [LiveReplanner.java]
+ * Plays one player through a game as it happens, one shrink of the zone at a time
+ * Between ticks it is told what changed, such as loot appearing or being taken, cells being blocked or the player being moved,
+ * and it plans again from the player's cell and depth within a time budget for each tick
+ * The solver is kept for the whole game, so its stored solutions and path segments carry over from one tick to the next
+ */
+
+class LiveReplanner {
+    // CONSTANTS BEGIN
+
+    // the time given to planning each tick when none is given
+    static final long DEFAULT_BUDGET_NANOS = 2000000L;
+
+    // CONSTANTS END
+
+    // the player's own copy of the map, updated with what the player is told
+    final GameMap map;
+    // the compiled zone of the map
+    final ZoneGrid zone;
+    // the solver, kept for the whole game
+    final BattleRoyaleOptimized solver;
+    // the time given to planning each tick, in nanoseconds
+    final long budgetNanos;
+
+    // PLAYER STATE BEGIN
+
+    // the cell the player is on
+    int cell;
+    // the number of times the zone has shrunk
+    int tick;
+    // the tick the player can move again. a player that starts looting is busy until the looting is done
+    int busyUntil;
+    // the amount of loot the player has collected
+    int collected;
+
+    // PLAYER STATE END
+
+    // PLAN STATE BEGIN
+
+    // the planned cells, in order
+    private int[] plan = new int[0];
+    // the amount of loot each planned cell held when it was planned
+    private byte[] plannedLoot = new byte[0];
+    // the index of the next planned cell
+    private int planStep;
+    // the tick the next planned move is expected on
+    private int expectedTick = -1;
+    // whether something the plan did not know about has changed since it was made
+    private boolean stale = true;
+
+    // PLAN STATE END
+
+    // STATISTICS BEGIN
+
+    // the number of times a plan was searched for
+    int replans;
+    // the number of searches that ran out of time
+    int abortedReplans;
+    // the total and longest time spent searching, in nanoseconds
+    long replanNanos, maxReplanNanos;
+
+    // STATISTICS END
+
+    /**
+     * LiveReplanner
+     * @param map The map at the start of the game. The replanner keeps its own copy.
+     * @param zone The compiled zone of the map.
+     * @param start The cell the player starts on.
+     * @param budgetNanos The time given to planning each tick, in nanoseconds.
+     */
+    LiveReplanner(GameMap map, ZoneGrid zone, int start, long budgetNanos) {
+        this.map = new GameMap(map.length, map.width, GameMap.copyArray(map.tiles));
+        this.zone = zone;
+        this.solver = new BattleRoyaleOptimized(this.map, zone);
+        this.budgetNanos = budgetNanos;
+        this.cell = start;
+    }
+
+    /**
+     * main
+     * Plays a game on a map while other players take loot and new loot and walls appear, and reports how long planning took
+     *
+     * @param args Optionally the map file, the planning budget per tick in milliseconds and the random seed, in that order
+     * @throws IOException Throws this exception if the map file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        GameMap map = GameMap.readFromFile(new File((args.length > 0) ? args[0] : "map.txt"));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        long budgetNanos = (args.length > 1) ? (long) (Double.parseDouble(args[1]) * 1000000) : DEFAULT_BUDGET_NANOS;
+        Random rng = (args.length > 2) ? new Random(Long.parseLong(args[2])) : new Random();
+
+        ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(map.length, map.width));
+        int start = MatchSimulation.randomDrops(map, zone, 1, rng)[0];
+        LiveReplanner player = new LiveReplanner(map, zone, start, budgetNanos);
+
+        while (!player.isFinished()) {
+            // other players take loot, and now and then new loot drops or a cell is blocked
+            List<Integer> changedCells = new ArrayList<>();
+            List<Integer> changedValues = new ArrayList<>();
+            for (int i = 0; i < 3; ++i) {
+                int cell = rng.nextInt(map.size);
+                if (player.solver.blocked[cell]) {
+                    // nothing can drop on a wall, and walls have no loot to take
+                    continue;
+                }
+                if ((player.map.loot[cell] > 0) || (rng.nextInt(8) == 0)) {
+                    changedCells.add(cell);
+                    changedValues.add((player.map.loot[cell] > 0) ? 0 : 1 + rng.nextInt(3));
+                }
+            }
+            int[] cells = new int[changedCells.size()];
+            int[] values = new int[cells.length];
+            for (int i = 0; i < cells.length; ++i) {
+                cells[i] = changedCells.get(i);
+                values[i] = changedValues.get(i);
+            }
+            player.observeLoot(cells, values);
+
+            int wall = rng.nextInt(map.size);
+            if ((rng.nextInt(16) == 0) && (wall != player.cell) && (wall != player.solver.centre)) {
+                player.observeBlocked(new int[]{wall});
+            }
+
+            player.advance();
+        }
+
+        System.out.println("Played " + player.tick + " tick(s) and collected " + player.collected + " item(s) of loot");
+        System.out.println("Ended on (" + map.rows[player.cell] + ", " + map.cols[player.cell] + ")"
+                + ((player.cell == player.solver.centre) ? ", the centre" : ", not the centre"));
+        System.out.println("Planned " + player.replans + " time(s), " + player.abortedReplans + " of which ran out of time");
+        if (player.replans > 0) {
+            System.out.println("Average planning time: " + ((double) player.replanNanos / player.replans / 1000000) + " milliseconds");
+            System.out.println("Longest planning time: " + ((double) player.maxReplanNanos / 1000000) + " milliseconds");
+        }
+    }
+
+    /**
+     * isFinished
+     * @return boolean True once the zone has finished shrinking or the player is outside the zone.
+     */
+    boolean isFinished() {
+        return (tick > zone.maxDepth) || (tick > zone.deadlines[cell]);
+    }
+
+    /**
+     * observeLoot
+     * Tells the player that the loot on some cells changed.
+     * Blocked cells never hold loot, so being told of loot on one means the player's view of the game is wrong and it is rejected.
+     *
+     * @param cells The cells whose loot changed.
+     * @param values The new amount of loot on each cell, from 0 to 9. Only 0 is allowed on a blocked cell.
+     * @throws IllegalArgumentException Throws this exception if loot is placed on a blocked cell, before anything is changed.
+     */
+    void observeLoot(int[] cells, int[] values) {
+        if (cells.length > 0) {
+            solver.applyLootDeltas(cells, values);
+            stale = true;
+        }
+    }
+
+    /**
+     * observeBlocked
+     * Tells the player that some cells can no longer be walked through.
+     *
+     * @param cells The blocked cells.
+     */
+    void observeBlocked(int[] cells) {
+        if (cells.length > 0) {
+            solver.blockCells(cells);
+            stale = true;
+        }
+    }
+
+    /**
+     * forceMove
+     * Tells the player it was moved to a cell by something other than its plan.
+     *
+     * @param cell The cell the player is now on.
+     */
+    void forceMove(int cell) {
+        this.cell = cell;
+        stale = true;
+    }
+
+    /**
+     * advance
+     * Plays one tick. The player plans again if its plan is no longer valid, then takes the next step of the plan.
+     * A player that is busy looting stays where it is.
+     *
+     * @return int The cell the player is on after the tick.
+     */
+    int advance() {
+        if (tick >= busyUntil) {
+            if (!isPlanValid()) {
+                replan();
+            }
+
+            int next;
+            if (planStep < plan.length) {
+                next = plan[planStep];
+                ++planStep;
+            } else {
+                // there is no plan, so at least head for the centre
+                next = stepTowards(cell, solver.centre);
+            }
+
+            int loot = map.loot[next];
+            if (tick + Math.max(loot, 1) > zone.escapeDeadlines[next]) {
+                // plans only pass single items on the way, but loot can appear on a planned cell after the plan is made,
+                // so it is left if stopping for it would leave the player trapped outside the zone
+                loot = 0;
+            }
+            cell = next;
+            busyUntil = tick + Math.max(loot, 1);
+            expectedTick = busyUntil;
+            if (loot > 0) {
+                collected += loot;
+                // the loot is gone now, which only affects the stored solutions that counted it
+                solver.applyLootDeltas(new int[]{next}, new int[]{0});
+            }
+        }
+        ++tick;
+        return cell;
+    }
+
+    /**
+     * isPlanValid
+     * @return boolean True if nothing has changed since the plan was made, the player is on schedule,
+     * and the next planned cell still holds the loot it was planned with.
+     */
+    private boolean isPlanValid() {
+        if (stale || (expectedTick != tick) || (planStep >= plan.length)) {
+            return false;
+        }
+        return map.loot[plan[planStep]] == plannedLoot[planStep];
+    }
+
+    /**
+     * replan
+     * Searches for the best path from the player's cell and depth within the time budget.
+     * If the search runs out of time the old plan is dropped, and the states it did solve are kept for the next tick.
+     */
+    private void replan() {
+        long startTime = System.nanoTime();
+        List<Position> route = solver.resolveRoute(cell, tick, startTime + budgetNanos);
+        long elapsed = System.nanoTime() - startTime;
+
+        ++replans;
+        replanNanos += elapsed;
+        maxReplanNanos = Math.max(maxReplanNanos, elapsed);
+
+        planStep = 0;
+        expectedTick = tick;
+        if (solver.searchAborted) {
+            ++abortedReplans;
+            plan = new int[0];
+            // the search is picked up again next tick
+            return;
+        }
+        stale = false;
+
+        int length = (route != null) ? route.size() : 0;
+        plan = new int[length];
+        plannedLoot = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            Position position = route.get(i);
+            plan[i] = map.cell(position.row, position.col);
+            plannedLoot[i] = map.loot[plan[i]];
+        }
+    }
+
+    /**
+     * stepTowards
+     * Finds the neighbour of a cell that is one move closer to a goal, is not blocked and is still inside the zone on the next tick.
+     *
+     * @param from The cell to move from.
+     * @param goal The cell to move towards.
+     * @return int The cell to move to, or the same cell if it is the goal or no closer cell is safe.
+     */
+    int stepTowards(int from, int goal) {
+        int distance = map.distance(from, goal);
+        for (int i = 0; i < GameMap.NEIGHBOURS - 1; ++i) {
+            int next = map.neighbours[from * GameMap.NEIGHBOURS + i];
+            if ((next != GameMap.NO_NEIGHBOUR) && !solver.blocked[next] && (map.distance(next, goal) < distance)
+                    && (tick + 1 <= zone.escapeDeadlines[next])) {
+                return next;
+            }
+        }
+        return from;
+    }
+}
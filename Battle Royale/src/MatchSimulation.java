@@ -0,0 +1,260 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * [MatchSimulation.java]
+ * Simulates a match between many players who compete for the same loot while the zone shrinks
+ * The match advances one shrink of the zone per tick, and loot belongs to the first player to step on it
+ * Player state is kept in parallel primitive arrays indexed by player, so stepping a match touches a few flat arrays
+ */
+
+class MatchSimulation {
+    // the map of the match. its loot grid is the match's own copy and is emptied as players claim loot
+    final GameMap map;
+    // the compiled zone of the match
+    final ZoneGrid zone;
+    // the cell every player has to reach by the end of the match
+    final int centre;
+    // the amount of loot left at each cell, shared by every player
+    final byte[] loot;
+    // the number of players in the match
+    final int playerCount;
+
+    // PLAYER STATE BEGIN
+
+    // the cell each player is on
+    final int[] cells;
+    // the amount of loot each player has collected
+    final int[] collected;
+    // the tick each player can move again. a player that starts looting is busy until the looting is done
+    final int[] busyUntil;
+    // the tick each player died on, or -1 if the player is alive
+    final int[] deathTicks;
+
+    // PLAYER STATE END
+
+    // the number of times the zone has shrunk
+    int tick;
+    // the number of players still alive
+    int aliveCount;
+
+    // decides the moves of each player
+    private final AgentPlanner[] planners;
+    // the order players move in this tick. shuffled every tick so no player always gets to loot first
+    private final int[] order;
+    // breaks ties between players arriving on the same loot in the same tick
+    private final Random rng;
+
+    /**
+     * MatchSimulation
+     * @param map The map of the match. It is copied, so the same map can be used for many matches.
+     * @param zone The compiled zone of the map.
+     * @param startCells The cell each player drops in on.
+     * @param planners The planner of each player. A planner can be shared by several players if it keeps state per player.
+     * @param seed The seed for the order players move in.
+     */
+    MatchSimulation(GameMap map, ZoneGrid zone, int[] startCells, AgentPlanner[] planners, long seed) {
+        if (startCells.length != planners.length) {
+            throw new IllegalArgumentException("Every player needs exactly one planner");
+        }
+        this.map = new GameMap(map.length, map.width, GameMap.copyArray(map.tiles));
+        this.zone = zone;
+        centre = map.cell(zone.centreRow, zone.centreCol);
+        this.loot = this.map.loot;
+        this.planners = planners;
+        playerCount = startCells.length;
+        aliveCount = playerCount;
+        rng = new Random(seed);
+
+        cells = startCells.clone();
+        collected = new int[playerCount];
+        busyUntil = new int[playerCount];
+        deathTicks = new int[playerCount];
+        order = new int[playerCount];
+        for (int i = 0; i < playerCount; ++i) {
+            deathTicks[i] = -1;
+            order[i] = i;
+        }
+    }
+
+    /**
+     * main
+     * Runs many matches of randomly dropped players and reports the speed and the outcomes
+     *
+     * @param args The map file, then optionally the number of players, the number of matches and the planner, greedy or solver
+     * @throws IOException Throws this exception if the map file is not found
+     */
+    public static void main(String[] args) throws IOException {
+        GameMap map = GameMap.readFromFile(new File((args.length > 0) ? args[0] : "map.txt"));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        int players = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+        int matches = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+        boolean useSolver = (args.length > 3) && args[3].equals("solver");
+
+        ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(map.length, map.width));
+        Random rng = new Random();
+        long survivors = 0;
+        long totalLoot = 0;
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < matches; ++i) {
+            AgentPlanner planner = useSolver ? new SolverPlanner(players) : new GreedyPlanner(players);
+            AgentPlanner[] planners = new AgentPlanner[players];
+            Arrays.fill(planners, planner);
+
+            MatchSimulation match = new MatchSimulation(map, zone, randomDrops(map, zone, players, rng), planners, rng.nextLong());
+            match.run();
+            survivors += match.aliveCount;
+            for (int j = 0; j < players; ++j) {
+                totalLoot += match.collected[j];
+            }
+        }
+        long endTime = System.nanoTime();
+
+        System.out.println("Simulated " + matches + " match(es) of " + players + " player(s) in " + ((endTime - startTime) / 1000000) + " milliseconds");
+        System.out.println("Average survivors: " + ((double) survivors / matches));
+        System.out.println("Average loot per player: " + ((double) totalLoot / ((long) matches * players)));
+    }
+
+    /**
+     * randomDrops
+     * Picks drop in cells for players, on cells without loot from which the centre can still be reached.
+     *
+     * @param map The map.
+     * @param zone The compiled zone of the map.
+     * @param players The number of players.
+     * @param rng The random number generator.
+     * @return int[] The drop in cell of each player.
+     */
+    static int[] randomDrops(GameMap map, ZoneGrid zone, int players, Random rng) {
+        // the cells a player can drop in on
+        int[] candidates = new int[map.size];
+        int candidateCount = 0;
+        for (int cell = 0; cell < map.size; ++cell) {
+            if ((map.loot[cell] == 0) && (zone.escapeDeadlines[cell] >= 0)) {
+                candidates[candidateCount++] = cell;
+            }
+        }
+        if (candidateCount == 0) {
+            throw new IllegalArgumentException("No cell on the map is safe to drop in on");
+        }
+
+        int[] drops = new int[players];
+        for (int i = 0; i < players; ++i) {
+            drops[i] = candidates[rng.nextInt(candidateCount)];
+        }
+        return drops;
+    }
+
+    /**
+     * isFinished
+     * @return boolean True once the zone has finished shrinking or every player is dead.
+     */
+    boolean isFinished() {
+        return (tick >= zone.maxDepth) || (aliveCount == 0);
+    }
+
+    /**
+     * run
+     * Steps the match until it is finished.
+     */
+    void run() {
+        while (!isFinished()) {
+            step();
+        }
+    }
+
+    /**
+     * step
+     * Moves every player that is free to move, then shrinks the zone once and removes the players outside it.
+     */
+    void step() {
+        // shuffle the move order so that ties over loot are broken fairly
+        for (int i = playerCount - 1; i > 0; --i) {
+            int j = rng.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        for (int i = 0; i < playerCount; ++i) {
+            int player = order[i];
+            if ((deathTicks[player] == -1) && (busyUntil[player] <= tick)) {
+                move(player, planners[player].nextCell(this, player));
+            }
+        }
+
+        ++tick;
+
+        // the players outside the zone die
+        for (int player = 0; player < playerCount; ++player) {
+            if ((deathTicks[player] == -1) && (tick > zone.deadlines[cells[player]])) {
+                deathTicks[player] = tick;
+                --aliveCount;
+            }
+        }
+    }
+
+    /**
+     * move
+     * Moves a player and claims any loot on the cell it moves to.
+     * Loot worth more than 1 takes as many ticks to loot as it is worth, the same as in the solvers.
+     *
+     * @param player The index of the player.
+     * @param next The cell the player's planner chose.
+     */
+    private void move(int player, int next) {
+        if (!isMove(cells[player], next)) {
+            // a planner that asks for an impossible move stays where it is
+            next = cells[player];
+        }
+        cells[player] = next;
+
+        int value = loot[next];
+        if (value > 0) {
+            // the first player to reach the loot takes all of it
+            loot[next] = 0;
+            collected[player] += value;
+        }
+        busyUntil[player] = tick + Math.max(value, 1);
+    }
+
+    /**
+     * isMove
+     * @param from The cell moved from.
+     * @param to The cell moved to.
+     * @return boolean True if the cell moved to is the same cell or one of its neighbours.
+     */
+    boolean isMove(int from, int to) {
+        for (int i = 0; i < GameMap.NEIGHBOURS; ++i) {
+            if (map.neighbours[from * GameMap.NEIGHBOURS + i] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * stepTowards
+     * Finds the neighbour of a cell that is one move closer to a goal and still inside the zone on the next tick.
+     *
+     * @param from The cell to move from.
+     * @param goal The cell to move towards.
+     * @return int The cell to move to, or the same cell if it is the goal or no closer cell is safe.
+     */
+    int stepTowards(int from, int goal) {
+        int distance = map.distance(from, goal);
+        for (int i = 0; i < GameMap.NEIGHBOURS - 1; ++i) {
+            int next = map.neighbours[from * GameMap.NEIGHBOURS + i];
+            if ((next != GameMap.NO_NEIGHBOUR) && (map.distance(next, goal) < distance) && (tick + 1 <= zone.escapeDeadlines[next])) {
+                return next;
+            }
+        }
+        return from;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * [MemoEntry.java]
+ * The stored solution of a dynamic programming state, along with where the state was
+ * Knowing where a state was lets a solver tell which stored solutions a change to the loot can affect
+ */
+
+class MemoEntry {
+    // the cells of the best path from the state's cell to the centre. null if no path from the state survives,
+    // or if the solution came from a store that does not keep paths
+    final int[] path;
+    // the amount of loot the path collects that the state had not already targeted. -1 if there is no path
+    final int loot;
+    // the cell the state was on
+    final int cell;
+    // the number of times the boundaries had shrunk at the state
+    final int depth;
+    // the first target of the path, or -1 if there is no path
+    final int successor;
+    // the key of the state reached after looting the first target. 0 if the first target is the centre
+    final long childKey;
+
+    // For MemoTable, which keeps entries on the heap
+    // the state's hash
+    long key;
+    // how much the solution is worth keeping per byte, and its worth once aged
+    double worth, priority;
+    // the number of states solved to find the solution, so a checkpoint can write it again
+    long work;
+    // the index of the solution in the table's heap. -1 if it is not stored
+    int heapIndex = -1;
+
+    /**
+     * MemoEntry
+     * @param path The cells of the best path from the state's cell to the centre.
+     * @param loot The amount of loot the path collects that the state had not already targeted.
+     * @param cell The cell the state was on.
+     * @param depth The number of times the boundaries had shrunk at the state.
+     * @param successor The first target of the path, or -1 if there is no path.
+     * @param childKey The key of the state reached after looting the first target. 0 if the first target is the centre.
+     */
+    MemoEntry(int[] path, int loot, int cell, int depth, int successor, long childKey) {
+        this.path = path;
+        this.loot = loot;
+        this.cell = cell;
+        this.depth = depth;
+        this.successor = successor;
+        this.childKey = childKey;
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.function.Predicate;
+
+/**
+ * [MemoStore.java]
+ * Stores the solutions of dynamic programming states for a solver within a memory budget
+ * A store may drop any solution at any time, which only makes the solver find it again
+ */
+
+interface MemoStore {
+    /**
+     * get
+     * @param key The state's hash.
+     * @return MemoEntry The stored solution, or null if there is none.
+     */
+    MemoEntry get(long key);
+
+    /**
+     * put
+     * Stores a solution, making room for it if the store is full.
+     * @param key The state's hash.
+     * @param entry The solution.
+     * @param work The number of states solved to find the solution.
+     * @param shallowness How many more times the boundaries can shrink after the state, plus one.
+     */
+    void put(long key, MemoEntry entry, long work, int shallowness);
+
+    /**
+     * removeIf
+     * Removes every stored solution that matches a condition.
+     * @param condition Returns true for the solutions to remove.
+     */
+    void removeIf(Predicate<MemoEntry> condition);
+
+    /**
+     * clear
+     * Removes every stored solution. The statistics are kept.
+     */
+    void clear();
+
+    /**
+     * keepsPaths
+     * A store that does not keep paths only keeps the first target and the key of the state after it,
+     * so the solver rebuilds the path of the solution it returns from the chain of stored solutions.
+     * @return boolean True if stored solutions are returned with their paths.
+     */
+    boolean keepsPaths();
+
+    /**
+     * size
+     * @return int The number of stored solutions.
+     */
+    int size();
+
+    /**
+     * getUsedBytes
+     * @return long The bytes the stored solutions take up.
+     */
+    long getUsedBytes();
+
+    /**
+     * getBudgetBytes
+     * @return long The most bytes the stored solutions can take up.
+     */
+    long getBudgetBytes();
+
+    /**
+     * getHits
+     * @return long The number of times a solution was found.
+     */
+    long getHits();
+
+    /**
+     * getMisses
+     * @return long The number of times a solution was not found.
+     */
+    long getMisses();
+
+    /**
+     * getEvictions
+     * @return long The number of solutions removed to make room for others.
+     */
+    long getEvictions();
+}
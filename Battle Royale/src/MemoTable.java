@@ -0,0 +1,274 @@
+import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * [MemoTable.java]
+ * Stores the solutions of dynamic programming states within a memory budget
+ * When a new solution does not fit, the solutions that are cheapest to find again per byte are removed first
+ * A solution's worth is the number of states solved to find it times how shallow its state is, since shallow states are reached again most often
+ * Worth is aged like GreedyDual-Size, so solutions that are not used again are eventually removed even if they were worth a lot
+ */
+
+class MemoTable implements MemoStore {
+    // CONSTANTS BEGIN
+
+    // the estimated bytes one entry takes up, not counting its path
+    // covers the entry, its boxed key, the hash map node and its share of the hash map's table
+    static final int ENTRY_OVERHEAD_BYTES = 120;
+    // the estimated bytes of an int array with no elements
+    static final int ARRAY_OVERHEAD_BYTES = 16;
+
+    // CONSTANTS END
+
+    // the most bytes the stored solutions can take up
+    private final long budgetBytes;
+    // the stored solutions, keyed by the state's hash
+    private final HashMap<Long, MemoEntry> entries = new HashMap<>();
+    // a binary min-heap of the stored solutions ordered by priority, so the least worth is removed first
+    private MemoEntry[] heap = new MemoEntry[16];
+    // the number of stored solutions
+    private int size;
+    // the priority of the last removed solution. added to every new priority so that old worth fades
+    private double inflation;
+    // the estimated bytes the stored solutions take up
+    private long usedBytes;
+    // the number of cells in the paths of the stored solutions
+    private long pathCells;
+
+    // STATISTICS BEGIN
+
+    // the number of times a solution was found, was not found, and was removed to make room
+    private long hits, misses, evictions;
+
+    // STATISTICS END
+
+    /**
+     * MemoTable
+     * @param budgetBytes The most bytes the stored solutions can take up.
+     */
+    MemoTable(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    @Override
+    public MemoEntry get(long key) {
+        MemoEntry entry = entries.get(key);
+        if (entry == null) {
+            ++misses;
+            return null;
+        }
+        ++hits;
+        entry.priority = inflation + entry.worth;
+        siftDown(entry.heapIndex);
+        return entry;
+    }
+
+    @Override
+    public void put(long key, MemoEntry entry, long work, int shallowness) {
+        int bytes = getBytes(entry);
+        // a solution larger than the whole budget is not stored
+        if (bytes > budgetBytes) {
+            return;
+        }
+        MemoEntry old = entries.get(key);
+        if (old != null) {
+            removeEntry(old);
+        }
+        // remove the solutions with the lowest priority until the new one fits
+        while (usedBytes + bytes > budgetBytes) {
+            inflation = heap[0].priority;
+            removeEntry(heap[0]);
+            ++evictions;
+        }
+
+        entry.key = key;
+        entry.work = work;
+        entry.worth = (double) work * shallowness / bytes;
+        entry.priority = inflation + entry.worth;
+        entries.put(key, entry);
+        usedBytes += bytes;
+        pathCells += getPathLength(entry);
+
+        if (size == heap.length) {
+            MemoEntry[] larger = new MemoEntry[size * 2];
+            System.arraycopy(heap, 0, larger, 0, size);
+            heap = larger;
+        }
+        heap[size] = entry;
+        entry.heapIndex = size;
+        ++size;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public void removeIf(Predicate<MemoEntry> condition) {
+        // removing an entry reorders the heap, so the entries to remove are found first
+        MemoEntry[] matches = new MemoEntry[size];
+        int matchCount = 0;
+        for (int i = 0; i < size; ++i) {
+            if (condition.test(heap[i])) {
+                matches[matchCount++] = heap[i];
+            }
+        }
+        for (int i = 0; i < matchCount; ++i) {
+            removeEntry(matches[i]);
+        }
+    }
+
+    /**
+     * forEach
+     * @param action Called with every stored solution, whose key and work are set. It must not change the table.
+     */
+    void forEach(Consumer<MemoEntry> action) {
+        for (int i = 0; i < size; ++i) {
+            action.accept(heap[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        for (int i = 0; i < size; ++i) {
+            heap[i] = null;
+        }
+        size = 0;
+        usedBytes = 0;
+        pathCells = 0;
+        inflation = 0;
+    }
+
+    @Override
+    public boolean keepsPaths() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * getPathCells
+     * @return long The number of cells in the paths of the stored solutions, kept up to date as solutions are stored and removed.
+     */
+    long getPathCells() {
+        return pathCells;
+    }
+
+    @Override
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * getBytes
+     * @param entry A solution.
+     * @return int The estimated bytes the solution takes up when stored.
+     */
+    static int getBytes(MemoEntry entry) {
+        int pathBytes = (entry.path != null) ? (ARRAY_OVERHEAD_BYTES + 4 * entry.path.length) : 0;
+        return ENTRY_OVERHEAD_BYTES + pathBytes;
+    }
+
+    /**
+     * getPathLength
+     * @param entry A solution.
+     * @return int The number of cells in the solution's path, or 0 if it has none.
+     */
+    private static int getPathLength(MemoEntry entry) {
+        return (entry.path != null) ? entry.path.length : 0;
+    }
+
+    /**
+     * removeEntry
+     * Removes a stored solution from the hash map and the heap.
+     *
+     * @param entry The solution.
+     */
+    private void removeEntry(MemoEntry entry) {
+        entries.remove(entry.key);
+        usedBytes -= getBytes(entry);
+        pathCells -= getPathLength(entry);
+
+        int index = entry.heapIndex;
+        --size;
+        MemoEntry last = heap[size];
+        heap[size] = null;
+        entry.heapIndex = -1;
+        if (index != size) {
+            heap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            siftUp(last.heapIndex);
+        }
+    }
+
+    /**
+     * siftUp
+     * Moves an entry towards the top of the heap until its parent has a lower priority.
+     *
+     * @param index The index of the entry in the heap.
+     */
+    private void siftUp(int index) {
+        MemoEntry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].priority <= entry.priority) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+
+    /**
+     * siftDown
+     * Moves an entry towards the bottom of the heap until its children have higher priorities.
+     *
+     * @param index The index of the entry in the heap.
+     */
+    private void siftDown(int index) {
+        MemoEntry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if ((child + 1 < size) && (heap[child + 1].priority < heap[child].priority)) {
+                ++child;
+            }
+            if (heap[child].priority >= entry.priority) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.heapIndex = index;
+    }
+}
@@ -0,0 +1,359 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * [OffHeapMemoTable.java]
+ * Stores the solutions of dynamic programming states outside the Java heap, so large stores do not slow down garbage collection
+ * Solutions are kept in fixed width slots of an open addressed table, in direct buffers or in a memory mapped file
+ * A slot only holds a solution's first target and the key of the state after it, so solutions are returned without their paths
+ * and the solver rebuilds the path of the solution it returns from the chain of slots
+ * When every slot a key can use is full, the solution with the lowest priority is replaced, aged like MemoTable
+ * Each slot holds the generation it was stored in, so clearing the table only starts a new generation
+ */
+
+class OffHeapMemoTable implements MemoStore {
+    // CONSTANTS BEGIN
+
+    // the bytes of one slot, and where each field is inside it. padded so that the keys of every slot stay 8 byte aligned
+    static final int SLOT_BYTES = 48;
+    static final int KEY_OFFSET = 0;
+    static final int CHILD_KEY_OFFSET = 8;
+    static final int LOOT_OFFSET = 16;
+    static final int CELL_OFFSET = 20;
+    static final int DEPTH_OFFSET = 24;
+    static final int SUCCESSOR_OFFSET = 28;
+    static final int WORTH_OFFSET = 32;
+    static final int PRIORITY_OFFSET = 36;
+    // holds the generation the slot was stored in. a slot from any other generation is empty, and 0 is never a generation
+    static final int GENERATION_OFFSET = 40;
+    // a buffer holds 2^SEGMENT_SHIFT slots, which keeps each buffer under the 2 GB a buffer can address
+    static final int SEGMENT_SHIFT = 25;
+    // the number of slots after a key's home slot that the key can be stored in
+    static final int PROBES = 8;
+
+    // CONSTANTS END
+
+    /**
+     * SegmentSource
+     * Finds the path segments that stored solutions are rebuilt from
+     */
+    interface SegmentSource {
+        /**
+         * getSegment
+         * @param from The cell to start from.
+         * @param to The cell to end on.
+         * @return int[] The cells of the path after the start, ending on the cell to end on. null if the cell cannot be reached.
+         */
+        int[] getSegment(int from, int to);
+    }
+
+    // the buffers that hold the slots
+    private final ByteBuffer[] buffers;
+    // the number of slots minus one. the number of slots is a power of two
+    private final long slotMask;
+    // the cell that ends every path
+    private final int centre;
+    // finds the path segments between targets
+    private final SegmentSource segments;
+    // the number of stored solutions
+    private int size;
+    // the priority of the last replaced solution. added to every new priority so that old worth fades
+    private float inflation;
+    // the generation of the slots that hold solutions
+    private int generation = 1;
+
+    // STATISTICS BEGIN
+
+    // the number of times a solution was found, was not found, and was replaced to make room
+    private long hits, misses, evictions;
+
+    // STATISTICS END
+
+    /**
+     * OffHeapMemoTable
+     * Direct buffers are limited by -XX:MaxDirectMemorySize, which is the size of the heap by default.
+     * A memory mapped file is only limited by the disk, and the operating system decides how much of it stays in memory.
+     *
+     * @param budgetBytes The most bytes the slots can take up. Rounded down to a power of two number of slots.
+     * @param file The file to map the slots to, or null to use direct buffers. Anything in the file is overwritten.
+     * @param centre The cell that ends every path.
+     * @param segments Finds the path segments that stored solutions are rebuilt from.
+     * @throws IOException Throws this exception if the file cannot be mapped.
+     */
+    OffHeapMemoTable(long budgetBytes, File file, int centre, SegmentSource segments) throws IOException {
+        long slots = Long.highestOneBit(Math.max(budgetBytes / SLOT_BYTES, PROBES));
+        slotMask = slots - 1;
+        this.centre = centre;
+        this.segments = segments;
+
+        int segmentSlots = (int) Math.min(slots, 1L << SEGMENT_SHIFT);
+        buffers = new ByteBuffer[(int) (slots / segmentSlots)];
+        if (file == null) {
+            for (int i = 0; i < buffers.length; ++i) {
+                buffers[i] = ByteBuffer.allocateDirect(segmentSlots * SLOT_BYTES);
+            }
+        } else {
+            long segmentBytes = (long) segmentSlots * SLOT_BYTES;
+            // the mapping stays valid after the file is closed
+            try (RandomAccessFile mapped = new RandomAccessFile(file, "rw")) {
+                mapped.setLength(segmentBytes * buffers.length);
+                for (int i = 0; i < buffers.length; ++i) {
+                    buffers[i] = mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+                }
+            }
+            // a file that already existed may hold slots from an earlier run
+            emptySlots();
+        }
+    }
+
+    /**
+     * factory
+     * Creates off heap tables for solvers, for use with the solver constructor that takes a memo factory.
+     *
+     * @param budgetBytes The most bytes the slots can take up.
+     * @param file The file to map the slots to, or null to use direct buffers.
+     * @return Function Creates an off heap table for a solver.
+     */
+    static Function<BattleRoyaleOptimized, MemoStore> factory(long budgetBytes, File file) {
+        return solver -> {
+            try {
+                return new OffHeapMemoTable(budgetBytes, file, solver.centre, solver::getSegment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @Override
+    public MemoEntry get(long key) {
+        long slot = find(key);
+        if (slot < 0) {
+            ++misses;
+            return null;
+        }
+        ++hits;
+        // renew the priority of the solution that was found
+        setFloat(slot, PRIORITY_OFFSET, inflation + getFloat(slot, WORTH_OFFSET));
+        return new MemoEntry(null, getInt(slot, LOOT_OFFSET), getInt(slot, CELL_OFFSET), getInt(slot, DEPTH_OFFSET),
+                getInt(slot, SUCCESSOR_OFFSET), getLong(slot, CHILD_KEY_OFFSET));
+    }
+
+    @Override
+    public void put(long key, MemoEntry entry, long work, int shallowness) {
+        long home = hash(key);
+        long target = -1;
+        // the slot with the lowest priority, replaced if the key has no slot and there is no empty slot
+        long victim = -1;
+        for (int i = 0; i < PROBES; ++i) {
+            long slot = (home + i) & slotMask;
+            if (isEmpty(slot)) {
+                if (target < 0) {
+                    target = slot;
+                }
+            } else if (getLong(slot, KEY_OFFSET) == key) {
+                // the key is stored already, so its slot is reused
+                target = slot;
+                --size;
+                break;
+            } else if ((victim < 0) || (getFloat(slot, PRIORITY_OFFSET) < getFloat(victim, PRIORITY_OFFSET))) {
+                victim = slot;
+            }
+        }
+        if (target < 0) {
+            target = victim;
+            inflation = getFloat(victim, PRIORITY_OFFSET);
+            ++evictions;
+            --size;
+        }
+
+        float worth = (float) work * shallowness;
+        setLong(target, KEY_OFFSET, key);
+        setLong(target, CHILD_KEY_OFFSET, entry.childKey);
+        setInt(target, LOOT_OFFSET, entry.loot);
+        setInt(target, CELL_OFFSET, entry.cell);
+        setInt(target, DEPTH_OFFSET, entry.depth);
+        setInt(target, SUCCESSOR_OFFSET, entry.successor);
+        setFloat(target, WORTH_OFFSET, worth);
+        setFloat(target, PRIORITY_OFFSET, inflation + worth);
+        setInt(target, GENERATION_OFFSET, generation);
+        ++size;
+    }
+
+    @Override
+    public void removeIf(Predicate<MemoEntry> condition) {
+        for (long slot = 0; slot <= slotMask; ++slot) {
+            if (!isEmpty(slot)) {
+                // a solution whose chain is broken cannot be read any more, so it is removed as well
+                MemoEntry entry = load(slot);
+                if ((entry == null) || condition.test(entry)) {
+                    setInt(slot, GENERATION_OFFSET, 0);
+                    --size;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        // the slots of earlier generations are only emptied when the generations run out and start over
+        if (++generation == 0) {
+            emptySlots();
+        }
+        size = 0;
+        inflation = 0;
+    }
+
+    @Override
+    public boolean keepsPaths() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getUsedBytes() {
+        return (long) size * SLOT_BYTES;
+    }
+
+    @Override
+    public long getBudgetBytes() {
+        return (slotMask + 1) * SLOT_BYTES;
+    }
+
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * emptySlots
+     * Empties every slot, and starts again from the first generation.
+     */
+    private void emptySlots() {
+        for (long slot = 0; slot <= slotMask; ++slot) {
+            setInt(slot, GENERATION_OFFSET, 0);
+        }
+        generation = 1;
+    }
+
+    /**
+     * load
+     * Reads the solution in a slot, rebuilding its path from the segments to each target in its chain.
+     * Only removeIf needs the paths of stored solutions, so only it pays for rebuilding them.
+     *
+     * @param slot The slot.
+     * @return MemoEntry The solution, or null if a later slot of its chain has been replaced or a segment can no longer be walked.
+     */
+    private MemoEntry load(long slot) {
+        int cell = getInt(slot, CELL_OFFSET);
+        int successor = getInt(slot, SUCCESSOR_OFFSET);
+        long childKey = getLong(slot, CHILD_KEY_OFFSET);
+
+        int[] path = null;
+        if (successor >= 0) {
+            int[] segment = segments.getSegment(cell, successor);
+            if (segment == null) {
+                return null;
+            }
+            if (successor == centre) {
+                path = segment;
+            } else {
+                long childSlot = find(childKey);
+                MemoEntry child = (childSlot >= 0) ? load(childSlot) : null;
+                if ((child == null) || (child.path == null)) {
+                    return null;
+                }
+                path = new int[segment.length + child.path.length];
+                System.arraycopy(segment, 0, path, 0, segment.length);
+                System.arraycopy(child.path, 0, path, segment.length, child.path.length);
+            }
+        }
+        return new MemoEntry(path, getInt(slot, LOOT_OFFSET), cell, getInt(slot, DEPTH_OFFSET), successor, childKey);
+    }
+
+    /**
+     * find
+     * @param key The state's hash.
+     * @return long The slot holding the key, or -1 if the key is not stored.
+     */
+    private long find(long key) {
+        long home = hash(key);
+        // every slot a key can use is checked, so emptying a slot never hides a key stored after it
+        for (int i = 0; i < PROBES; ++i) {
+            long slot = (home + i) & slotMask;
+            if (!isEmpty(slot) && (getLong(slot, KEY_OFFSET) == key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * hash
+     * @param key The state's hash.
+     * @return long The key's home slot.
+     */
+    private long hash(long key) {
+        return (key ^ (key >>> 32)) & slotMask;
+    }
+
+    /**
+     * isEmpty
+     * @param slot The slot.
+     * @return boolean True if the slot does not hold a solution.
+     */
+    private boolean isEmpty(long slot) {
+        return getInt(slot, GENERATION_OFFSET) != generation;
+    }
+
+    // SLOT ACCESS BEGIN
+
+    private long getLong(long slot, int offset) {
+        return buffers[(int) (slot >>> SEGMENT_SHIFT)].getLong(offsetOf(slot, offset));
+    }
+
+    private int getInt(long slot, int offset) {
+        return buffers[(int) (slot >>> SEGMENT_SHIFT)].getInt(offsetOf(slot, offset));
+    }
+
+    private float getFloat(long slot, int offset) {
+        return buffers[(int) (slot >>> SEGMENT_SHIFT)].getFloat(offsetOf(slot, offset));
+    }
+
+    private void setLong(long slot, int offset, long value) {
+        buffers[(int) (slot >>> SEGMENT_SHIFT)].putLong(offsetOf(slot, offset), value);
+    }
+
+    private void setInt(long slot, int offset, int value) {
+        buffers[(int) (slot >>> SEGMENT_SHIFT)].putInt(offsetOf(slot, offset), value);
+    }
+
+    private void setFloat(long slot, int offset, float value) {
+        buffers[(int) (slot >>> SEGMENT_SHIFT)].putFloat(offsetOf(slot, offset), value);
+    }
+
+    private static int offsetOf(long slot, int offset) {
+        return (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * SLOT_BYTES + offset;
+    }
+
+    // SLOT ACCESS END
+}
@@ -0,0 +1,508 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * [ParallelSolver.java]
+ * Runs one BattleRoyaleOptimized search on many threads
+ * The first levels of targets are split into fork join tasks, each with its own copy of the search state, and deeper levels run on the task's thread
+ * Tasks share a lock striped store of solutions, and the most loot any finished path has collected,
+ * which lets them skip states that could not collect more even if every move from them picked up the most loot possible
+ */
+
+class ParallelSolver {
+    // CONSTANTS BEGIN
+
+    // the number of levels of targets split into tasks when none is given
+    static final int DEFAULT_SPLIT_LEVELS = 2;
+    // the number of memo tables per thread, so threads rarely wait for the same table
+    static final int STRIPES_PER_THREAD = 4;
+    // returned in place of a solution when a state is skipped because it cannot beat the best path found
+    static final MemoEntry PRUNED = new MemoEntry(null, -1, -1, -1, -1, 0);
+
+    // CONSTANTS END
+
+    // the solver whose map, zone, keys and path segments are used
+    final BattleRoyaleOptimized solver;
+    // the threads that run the tasks
+    final ForkJoinPool pool;
+    // the number of levels of targets split into tasks
+    final int splitLevels;
+    // stores solutions to states, shared by every thread
+    final MemoStore storedSolutions;
+
+    // SEARCH STATE BEGIN
+
+    // the targets of the search, with the centre first
+    private int[] targets;
+    // the index of each cell in the targets, or -1 if the cell is not a target
+    private int[] targetIndexes;
+    // the path segments between targets, indexed by 'from index' * 'target count' + 'to index'.
+    // the start's index is the target count. filled the first time each is needed
+    private AtomicReferenceArray<int[]> segmentTable;
+    // the total loot of the cells that are not targets. they can be passed on the way to a target
+    private int nonTargetLoot;
+    // the most loot on any one cell
+    private int maxCellLoot;
+    // the most loot collected by a finished path from the start
+    private final AtomicInteger incumbent = new AtomicInteger(-1);
+
+    // SEARCH STATE END
+
+    /**
+     * ParallelSolver
+     * @param solver The solver whose map, zone, keys and path segments are used. Its own stored solutions are not touched.
+     * @param pool The threads that run the tasks.
+     * @param splitLevels The number of levels of targets split into tasks.
+     * @param memoBudgetBytes The most bytes the shared stored solutions can take up.
+     */
+    ParallelSolver(BattleRoyaleOptimized solver, ForkJoinPool pool, int splitLevels, long memoBudgetBytes) {
+        this.solver = solver;
+        this.pool = pool;
+        this.splitLevels = splitLevels;
+        this.storedSolutions = new StripedMemoTable(memoBudgetBytes, pool.getParallelism() * STRIPES_PER_THREAD);
+    }
+
+    /**
+     * main
+     * Finds the best path from the player's position on one thread and then on every thread, and compares the times
+     *
+     * @param args Optionally the map file and the number of threads, in that order
+     * @throws IOException Throws this exception if the map file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        GameMap map = GameMap.readFromFile(new File((args.length > 0) ? args[0] : "map.txt"));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        int start = -1;
+        for (int cell = 0; cell < map.size; ++cell) {
+            if ((map.tiles[cell] == BattleRoyaleOptimized.CHAR_PLAYER) || (map.tiles[cell] == BattleRoyaleOptimized.CHAR_PLAYER_CAPITAL)) {
+                start = cell;
+            }
+        }
+        if (start < 0) {
+            System.out.println("The map has no player to start from");
+            return;
+        }
+        ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(map.length, map.width));
+
+        BattleRoyaleOptimized serial = new BattleRoyaleOptimized(map, zone);
+        long startTime = System.nanoTime();
+        List<Position> serialPath = serial.findBestRoute(start, 0);
+        long serialTime = System.nanoTime() - startTime;
+
+        BattleRoyaleOptimized shared = new BattleRoyaleOptimized(map, zone);
+        ParallelSolver parallel = new ParallelSolver(shared, new ForkJoinPool(threads), DEFAULT_SPLIT_LEVELS, BattleRoyaleOptimized.DEFAULT_MEMO_BUDGET_BYTES);
+        startTime = System.nanoTime();
+        List<Position> parallelPath = parallel.findBestRoute(start, 0);
+        long parallelTime = System.nanoTime() - startTime;
+        parallel.pool.shutdown();
+
+        System.out.println("One thread: " + ((serialPath != null) ? serial.getPathLoot(serialPath) : -1)
+                + " item(s) of loot in " + (serialTime / 1000000) + " milliseconds");
+        System.out.println(threads + " thread(s): " + ((parallelPath != null) ? shared.getPathLoot(parallelPath) : -1)
+                + " item(s) of loot in " + (parallelTime / 1000000) + " milliseconds");
+    }
+
+    /**
+     * findBestRoute
+     * Finds the path with the highest amount of loot from a position part way through the game, using every thread of the pool.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @return List<Position> the positions the path moves through after the start, ending on the centre. Will be null if there is no valid path.
+     */
+    List<Position> findBestRoute(int start, int depth) {
+        if (depth > solver.maxDepth) {
+            return null;
+        }
+        storedSolutions.clear();
+        // the loot may have been changed directly on the map, which the solver's segments depend on
+        solver.segments.clear();
+        incumbent.set(-1);
+
+        targets = solver.getValidTargets(start, depth);
+        targetIndexes = new int[solver.map.size];
+        for (int i = 0; i < targetIndexes.length; ++i) {
+            targetIndexes[i] = -1;
+        }
+        int remainingBound = 0;
+        for (int i = 0; i < targets.length; ++i) {
+            targetIndexes[targets[i]] = i;
+            remainingBound += solver.mapLoot[targets[i]];
+        }
+        nonTargetLoot = 0;
+        maxCellLoot = 0;
+        for (int cell = 0; cell < solver.map.size; ++cell) {
+            if (targetIndexes[cell] < 0) {
+                nonTargetLoot += solver.mapLoot[cell];
+            }
+            maxCellLoot = Math.max(maxCellLoot, solver.mapLoot[cell]);
+        }
+        segmentTable = new AtomicReferenceArray<>((targets.length + 1) * targets.length);
+
+        Branch root = new Branch(targets.length, solver.map.size);
+        root.state[0] = depth;
+        root.remainingBound = remainingBound + nonTargetLoot;
+        MemoEntry best = pool.invoke(new SearchTask(root, start));
+
+        if ((best == null) || (best.path == null)) {
+            return null;
+        }
+        List<Position> path = new ArrayList<>(best.path.length);
+        for (int cell : best.path) {
+            path.add(new Position(solver.map.rows[cell], solver.map.cols[cell]));
+        }
+        return path;
+    }
+
+    /**
+     * search
+     * Finds the best way to continue from a cell like BattleRoyaleOptimized.findBestPathHelper, on the branch's own copy of the search state.
+     * States whose loot so far plus all the loot left cannot beat the best finished path are skipped,
+     * and any state with a skipped state below it is not stored, since its solution may not be the best.
+     *
+     * @param branch The search state of this task.
+     * @param cell The current cell, which is the start or the last target reached.
+     * @return MemoEntry The path with the highest amount of loot from the cell to the centre, with a null path if there is none or it was skipped.
+     */
+    private MemoEntry search(Branch branch, int cell) {
+        int depth = branch.state[0];
+        long stateKey = branch.targetedKey ^ solver.depthKeys[depth] ^ solver.positionKeys[cell];
+
+        // if the state has been solved before, return the stored solution
+        MemoEntry stored = storedSolutions.get(stateKey);
+        if (stored != null) {
+            if (stored.path != null) {
+                offer(branch.prefixLoot + branch.getLootAfterPrefix(stored.path, solver.mapLoot));
+            }
+            return stored;
+        }
+        // even collecting every item left would not beat the best path found
+        // a path moves onto one cell each time the boundaries shrink, so it cannot collect more than the richest cell that many times
+        int bound = Math.min(branch.remainingBound, (solver.maxDepth - depth) * maxCellLoot);
+        if (branch.prefixLoot + bound <= incumbent.get()) {
+            ++branch.pruned;
+            return PRUNED;
+        }
+        long prunedBefore = branch.pruned;
+        long workBefore = branch.solvedStates++;
+
+        // the targets that can be looted from here, the depth after looting each, and the segment to each
+        int[] children = new int[targets.length];
+        int[] childDepths = new int[targets.length];
+        int[][] childSegments = new int[targets.length][];
+        int childCount = 0;
+        for (int i = 0; i < targets.length; ++i) {
+            // targets collected on the way to an earlier target are not searched again
+            if ((branch.state[i + 1] == 0) && !branch.targetedCells[targets[i]]) {
+                int target = targets[i];
+                int targetLoot = solver.mapLoot[target];
+                int nextDepth = depth + ((targetLoot > 1) ? targetLoot - 1 : 0);
+                if (solver.canLootAndLive(cell, target, nextDepth)) {
+                    int[] segment = getSegment(cell, i);
+                    // a detour can reach the target too late to get out, even though its distance did not
+                    if ((segment != null) && (nextDepth + segment.length <= solver.maxDepth)
+                            && !solver.shouldJustDie(target, nextDepth + segment.length)) {
+                        children[childCount] = i;
+                        childDepths[childCount] = nextDepth + segment.length;
+                        childSegments[childCount] = segment;
+                        ++childCount;
+                    }
+                }
+            }
+        }
+
+        // the solution from each child, found on this thread or by a task of its own, and the key of the child's state
+        MemoEntry[] childSolutions = new MemoEntry[childCount];
+        long[] childKeys = new long[childCount];
+        if (branch.level < splitLevels) {
+            List<SearchTask> tasks = new ArrayList<>(childCount);
+            for (int j = 0; j < childCount; ++j) {
+                if (targets[children[j]] != solver.centre) {
+                    Branch child = branch.copy();
+                    child.enter(children[j], childDepths[j], childSegments[j], solver);
+                    childKeys[j] = child.targetedKey ^ solver.depthKeys[childDepths[j]] ^ solver.positionKeys[targets[children[j]]];
+                    tasks.add(new SearchTask(child, targets[children[j]]));
+                }
+            }
+            SearchTask.invokeAll(tasks);
+            int taskIndex = 0;
+            for (int j = 0; j < childCount; ++j) {
+                if (targets[children[j]] != solver.centre) {
+                    SearchTask task = tasks.get(taskIndex++);
+                    childSolutions[j] = task.join();
+                    branch.pruned += task.branch.pruned;
+                    branch.solvedStates += task.branch.solvedStates;
+                }
+            }
+        } else {
+            for (int j = 0; j < childCount; ++j) {
+                if (targets[children[j]] != solver.centre) {
+                    int target = targets[children[j]];
+                    int[] undo = branch.enter(children[j], childDepths[j], childSegments[j], solver);
+                    childKeys[j] = branch.targetedKey ^ solver.depthKeys[childDepths[j]] ^ solver.positionKeys[target];
+                    childSolutions[j] = search(branch, target);
+                    branch.leave(children[j], depth, childSegments[j], undo, solver);
+                }
+            }
+        }
+
+        int bestLoot = -1;
+        int[] bestPath = null;
+        int bestSuccessor = -1;
+        long bestChildKey = 0;
+        for (int j = 0; j < childCount; ++j) {
+            int target = targets[children[j]];
+            int[] segment = childSegments[j];
+            int[] finalPath;
+            long childKey = 0;
+            if (target == solver.centre) {
+                // the target was the centre, so the segment ends the path
+                finalPath = segment;
+                offer(branch.prefixLoot + branch.getLootAfterPrefix(segment, solver.mapLoot));
+            } else {
+                MemoEntry next = childSolutions[j];
+                if (next.path == null) {
+                    continue;
+                }
+                childKey = childKeys[j];
+                finalPath = new int[segment.length + next.path.length];
+                System.arraycopy(segment, 0, finalPath, 0, segment.length);
+                System.arraycopy(next.path, 0, finalPath, segment.length, next.path.length);
+            }
+
+            int finalLoot = branch.getNewLoot(finalPath, solver.mapLoot);
+            if (finalLoot > bestLoot) {
+                bestLoot = finalLoot;
+                bestPath = finalPath;
+                bestSuccessor = target;
+                bestChildKey = childKey;
+            }
+        }
+
+        MemoEntry solution = new MemoEntry(bestPath, bestLoot, cell, depth, bestSuccessor, bestChildKey);
+        // a solution found with states skipped below it is only the best among the states that were searched
+        if (branch.pruned == prunedBefore) {
+            storedSolutions.put(stateKey, solution, branch.solvedStates - workBefore, solver.maxDepth - depth + 1);
+        }
+        return solution;
+    }
+
+    /**
+     * offer
+     * Records the loot of a finished path if it is the most found so far.
+     *
+     * @param loot The loot collected by the path from the start.
+     */
+    private void offer(int loot) {
+        int current = incumbent.get();
+        while ((loot > current) && !incumbent.compareAndSet(current, loot)) {
+            current = incumbent.get();
+        }
+    }
+
+    /**
+     * getSegment
+     * Gets a path segment from the shared table, finding it with the solver the first time it is needed.
+     * The solver's path finding is not thread safe, so only one thread uses it at a time.
+     *
+     * @param cell The cell to start from, which is the start or a target.
+     * @param toIndex The index of the target to end on.
+     * @return int[] The cells of the path after the start, ending on the target. null if the target cannot be reached.
+     */
+    private int[] getSegment(int cell, int toIndex) {
+        int fromIndex = (targetIndexes[cell] >= 0) ? targetIndexes[cell] : targets.length;
+        int index = fromIndex * targets.length + toIndex;
+        int[] segment = segmentTable.get(index);
+        if (segment == null) {
+            synchronized (solver) {
+                segment = solver.getSegment(cell, targets[toIndex]);
+            }
+            segmentTable.set(index, (segment != null) ? segment : BattleRoyaleOptimized.UNREACHABLE);
+            return segment;
+        }
+        return (segment == BattleRoyaleOptimized.UNREACHABLE) ? null : segment;
+    }
+
+    /**
+     * [SearchTask]
+     * Searches the states below one branch on a thread of the pool
+     */
+    private final class SearchTask extends RecursiveTask<MemoEntry> {
+        private static final long serialVersionUID = 1L;
+
+        // the search state of the branch, owned by this task
+        final Branch branch;
+        // the cell the branch is on
+        final int cell;
+
+        SearchTask(Branch branch, int cell) {
+            this.branch = branch;
+            this.cell = cell;
+        }
+
+        @Override
+        protected MemoEntry compute() {
+            return search(branch, cell);
+        }
+    }
+
+    /**
+     * [Branch]
+     * The search state of one task, which is changed and restored as the task moves down and back up the targets
+     */
+    private static final class Branch {
+        // the depth, then whether each target has been targeted, like the state of BattleRoyaleOptimized.findBestPathHelper
+        final int[] state;
+        // whether each cell has been targeted, and the XOR of the keys of the targeted cells
+        final boolean[] targetedCells;
+        long targetedKey;
+        // the number of times each cell is on the path from the start to the current state, and the loot of those cells
+        final int[] prefixCounts;
+        int prefixLoot;
+        // the most loot that can be collected after the current state
+        int remainingBound;
+        // marks the cells already counted by getNewLoot, with the stamp of the call that counted them
+        final int[] countedStamps;
+        int countStamp;
+        // the number of levels of targets above the current state
+        int level;
+        // the number of states skipped and solved by this branch and the tasks it started
+        long pruned, solvedStates;
+
+        Branch(int targetCount, int cellCount) {
+            state = new int[targetCount + 1];
+            targetedCells = new boolean[cellCount];
+            prefixCounts = new int[cellCount];
+            countedStamps = new int[cellCount];
+        }
+
+        /**
+         * copy
+         * @return Branch A copy of the branch that can be changed without changing this one. Statistics start from 0.
+         */
+        Branch copy() {
+            Branch copy = new Branch(state.length - 1, targetedCells.length);
+            System.arraycopy(state, 0, copy.state, 0, state.length);
+            System.arraycopy(targetedCells, 0, copy.targetedCells, 0, targetedCells.length);
+            System.arraycopy(prefixCounts, 0, copy.prefixCounts, 0, prefixCounts.length);
+            copy.targetedKey = targetedKey;
+            copy.prefixLoot = prefixLoot;
+            copy.remainingBound = remainingBound;
+            copy.level = level;
+            return copy;
+        }
+
+        /**
+         * enter
+         * Moves the branch down to a target, marking the target and the loot collected on the way to it as targeted.
+         *
+         * @param index The index of the target.
+         * @param nextDepth The depth after looting the target.
+         * @param segment The path segment to the target.
+         * @param solver The solver whose keys and loot are used.
+         * @return int[] The depth, loot so far and most loot left before the move, then the cells marked, used to move back up.
+         */
+        int[] enter(int index, int nextDepth, int[] segment, BattleRoyaleOptimized solver) {
+            int[] undo = new int[3 + segment.length];
+            undo[0] = state[0];
+            undo[1] = prefixLoot;
+            undo[2] = remainingBound;
+            int marked = 3;
+            state[index + 1] = 1;
+            state[0] = nextDepth;
+            for (int i = 0; i < segment.length; ++i) {
+                int cell = segment[i];
+                // like BattleRoyaleOptimized.markCollected, only the target and single items on the way are collected
+                boolean collected = (solver.mapLoot[cell] == 1) || ((i == segment.length - 1) && (solver.mapLoot[cell] > 0));
+                if (collected && !targetedCells[cell]) {
+                    targetedKey ^= solver.cellKeys[cell];
+                    targetedCells[cell] = true;
+                    remainingBound -= solver.mapLoot[cell];
+                    undo[marked++] = cell;
+                }
+                if (prefixCounts[cell]++ == 0) {
+                    prefixLoot += solver.mapLoot[cell];
+                }
+            }
+            ++level;
+            return Arrays.copyOf(undo, marked);
+        }
+
+        /**
+         * leave
+         * Moves the branch back up from a target entered with enter.
+         *
+         * @param index The index of the target.
+         * @param depth The depth before the target was entered.
+         * @param segment The path segment to the target.
+         * @param undo The values returned by enter.
+         * @param solver The solver whose keys are used.
+         */
+        void leave(int index, int depth, int[] segment, int[] undo, BattleRoyaleOptimized solver) {
+            state[index + 1] = 0;
+            state[0] = depth;
+            for (int i = 3; i < undo.length; ++i) {
+                targetedKey ^= solver.cellKeys[undo[i]];
+                targetedCells[undo[i]] = false;
+            }
+            for (int cell : segment) {
+                --prefixCounts[cell];
+            }
+            prefixLoot = undo[1];
+            remainingBound = undo[2];
+            --level;
+        }
+
+        /**
+         * getNewLoot
+         * Gets the amount of loot a path collects that has not already been targeted, counting each cell once.
+         *
+         * @param path The cells of a path.
+         * @param loot The loot on each cell.
+         * @return int The amount of loot the path adds.
+         */
+        int getNewLoot(int[] path, byte[] loot) {
+            ++countStamp;
+            int totalLoot = 0;
+            for (int cell : path) {
+                if ((countedStamps[cell] != countStamp) && !targetedCells[cell]) {
+                    countedStamps[cell] = countStamp;
+                    totalLoot += loot[cell];
+                }
+            }
+            return totalLoot;
+        }
+
+        /**
+         * getLootAfterPrefix
+         * Gets the amount of loot a path collects that the path from the start to the current state has not, counting each cell once.
+         *
+         * @param path The cells of a path.
+         * @param loot The loot on each cell.
+         * @return int The amount of loot the path adds to the path from the start.
+         */
+        int getLootAfterPrefix(int[] path, byte[] loot) {
+            ++countStamp;
+            int totalLoot = 0;
+            for (int cell : path) {
+                if ((countedStamps[cell] != countStamp) && (prefixCounts[cell] == 0)) {
+                    countedStamps[cell] = countStamp;
+                    totalLoot += loot[cell];
+                }
+            }
+            return totalLoot;
+        }
+    }
+}
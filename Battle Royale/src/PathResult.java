@@ -0,0 +1,62 @@
+/**
+ * [PathResult.java]
+ * The best path a solver found on a map, or the lack of one
+ */
+
+class PathResult {
+    // the map the path was found on
+    final GameMap map;
+    // the cells the path starts and ends on. -1 if no path exists
+    final int start, goal;
+    // the amount of loot the path contains. -1 if no path exists
+    final int loot;
+    // the cells of the map with the path drawn on it. null if no path exists
+    final char[] pathMap;
+
+    /**
+     * PathResult
+     * @param map The map the path was found on.
+     * @param start The cell the path starts on.
+     * @param goal The cell the path ends on.
+     * @param loot The amount of loot the path contains.
+     * @param pathMap The cells of the map with the path drawn on it.
+     */
+    PathResult(GameMap map, int start, int goal, int loot, char[] pathMap) {
+        this.map = map;
+        this.start = start;
+        this.goal = goal;
+        this.loot = loot;
+        this.pathMap = pathMap;
+    }
+
+    /**
+     * none
+     * @param map The map that has no path.
+     * @return PathResult A result saying that no path exists.
+     */
+    static PathResult none(GameMap map) {
+        return new PathResult(map, -1, -1, -1, null);
+    }
+
+    /**
+     * exists
+     * @return boolean True if a path was found.
+     */
+    boolean exists() {
+        return pathMap != null;
+    }
+
+    /**
+     * toString
+     * Describes the path the same way the solvers print it.
+     * @return String The start, end and loot of the path followed by the map with the path drawn on it.
+     */
+    @Override
+    public String toString() {
+        if (!exists()) {
+            return "No path exists" + System.lineSeparator();
+        }
+        return "Path from (" + map.rows[start] + "," + map.cols[start] + ") to (" + map.rows[goal] + "," + map.cols[goal] + ") with " + loot + " item(s) looted"
+                + System.lineSeparator() + map.formatArray(pathMap) + System.lineSeparator();
+    }
+}
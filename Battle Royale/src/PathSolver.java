@@ -0,0 +1,15 @@
+/**
+ * [PathSolver.java]
+ * An engine that finds the best path on a map, such as the brute force search or the target search
+ */
+
+interface PathSolver {
+    /**
+     * solve
+     * Finds the best path from the player's position, or the best position to drop in if the map has no player.
+     * @param map The map to solve. It must not be changed while it is being solved.
+     * @param zone The compiled zone of the map.
+     * @return PathResult The best path found.
+     */
+    PathResult solve(GameMap map, ZoneGrid zone);
+}
@@ -0,0 +1,552 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * [SolveCheckpoint.java]
+ * Runs a long solve that can be stopped at any time and resumed from a checkpoint file with the same result
+ * Every solution the solver stores is streamed to the file as it is found, so writing a checkpoint never has to copy the stored solutions
+ * At regular times the progress of the solve is added: which start is being searched and the best path found so far
+ * Once the file mostly holds solutions that are no longer stored, a checkpoint rewrites it with only the stored ones
+ * Resuming loads the solutions back and continues from the last progress, so states solved before the stop are not searched again
+ */
+
+class SolveCheckpoint {
+    // CONSTANTS BEGIN
+
+    // the first bytes of a checkpoint file, and the version of its layout
+    static final int MAGIC = 0x42524350;
+    static final int VERSION = 1;
+    // the kinds of records after the header
+    static final byte RECORD_SOLUTION = 1;
+    static final byte RECORD_PROGRESS = 2;
+    // the bytes of the header and of each record, not counting the cells of their paths
+    static final int HEADER_BYTES = 16;
+    static final int SOLUTION_BYTES = 45;
+    static final int PROGRESS_BYTES = 17;
+    // the time between checkpoints when none is given
+    static final long DEFAULT_INTERVAL_NANOS = 60L * 1000000000L;
+
+    // CONSTANTS END
+
+    /**
+     * [Journal]
+     * Stores solutions in a MemoTable, and writes each new solution to the checkpoint file
+     * Solutions the table removes stay in the file until it is compacted at a checkpoint, which rewrites it with only the stored solutions
+     * Removed solutions are not recorded, so only solves of a map that does not change can be checkpointed
+     */
+    static class Journal implements MemoStore {
+        // the table the solutions are kept in
+        final MemoTable store;
+        // the checkpoint file, and what identifies the map and zone it is for. null until the file is opened
+        private File file;
+        private long fingerprint;
+        // the stream to the checkpoint file, and the buffered stream the records are written through
+        private FileOutputStream fileOut;
+        private DataOutputStream out;
+        // the bytes of the checkpoint file, including what is still in the buffer
+        private long fileBytes;
+
+        /**
+         * Journal
+         * @param store The table to keep the solutions in.
+         */
+        Journal(MemoTable store) {
+            this.store = store;
+        }
+
+        /**
+         * open
+         * @param file The checkpoint file.
+         * @param keptBytes The bytes of the file to keep, or 0 to start a new file.
+         * @param fingerprint Identifies the map and zone the file is for.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        void open(File file, long keptBytes, long fingerprint) throws IOException {
+            this.file = file;
+            this.fingerprint = fingerprint;
+            if (keptBytes > 0) {
+                // a record cut off by a crash is dropped, so new records start where the last whole record ended
+                try (RandomAccessFile existing = new RandomAccessFile(file, "rw")) {
+                    existing.setLength(keptBytes);
+                }
+                openStream(file, true);
+                fileBytes = keptBytes;
+            } else {
+                openStream(file, false);
+            }
+        }
+
+        /**
+         * writeProgress
+         * Writes the progress of the solve, and waits until the file holds everything written so far.
+         * Once most of the solutions in the file are no longer stored, the file is compacted instead.
+         *
+         * @param cursor The index of the first start that has not been fully searched.
+         * @param bestLoot The loot of the best path so far, or -1 if there is none.
+         * @param bestStart The cell the best path starts on, or -1 if there is none.
+         * @param bestPath The cells of the best path after its start, or null if there is none.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        void writeProgress(int cursor, int bestLoot, int bestStart, int[] bestPath) throws IOException {
+            // the bytes the file would take up with only the stored solutions, from the totals the table keeps as it changes
+            long liveBytes = HEADER_BYTES + getRecordBytes(PROGRESS_BYTES, bestPath)
+                    + (long) store.size() * SOLUTION_BYTES + 4L * store.getPathCells();
+            if (fileBytes > 2 * liveBytes) {
+                // compacting only once the file is twice as big as it needs to be keeps the rewrites to a constant share of the writes
+                compact(cursor, bestLoot, bestStart, bestPath);
+                return;
+            }
+            writeProgressRecord(cursor, bestLoot, bestStart, bestPath);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+
+        /**
+         * close
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public MemoEntry get(long key) {
+            return store.get(key);
+        }
+
+        @Override
+        public void put(long key, MemoEntry entry, long work, int shallowness) {
+            store.put(key, entry, work, shallowness);
+            try {
+                writeSolution(key, entry, work);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void removeIf(Predicate<MemoEntry> condition) {
+            store.removeIf(condition);
+        }
+
+        @Override
+        public void clear() {
+            store.clear();
+        }
+
+        @Override
+        public boolean keepsPaths() {
+            return store.keepsPaths();
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+
+        @Override
+        public long getUsedBytes() {
+            return store.getUsedBytes();
+        }
+
+        @Override
+        public long getBudgetBytes() {
+            return store.getBudgetBytes();
+        }
+
+        @Override
+        public long getHits() {
+            return store.getHits();
+        }
+
+        @Override
+        public long getMisses() {
+            return store.getMisses();
+        }
+
+        @Override
+        public long getEvictions() {
+            return store.getEvictions();
+        }
+
+        /**
+         * compact
+         * Writes the stored solutions and the progress to a new file, then moves it over the checkpoint file.
+         * The move replaces the file in one step, so a crash leaves either the old file or the new one.
+         *
+         * @param cursor The index of the first start that has not been fully searched.
+         * @param bestLoot The loot of the best path so far, or -1 if there is none.
+         * @param bestStart The cell the best path starts on, or -1 if there is none.
+         * @param bestPath The cells of the best path after its start, or null if there is none.
+         * @throws IOException Throws this exception if either file cannot be written.
+         */
+        private void compact(int cursor, int bestLoot, int bestStart, int[] bestPath) throws IOException {
+            out.close();
+            File compacted = new File(file.getPath() + ".tmp");
+            openStream(compacted, false);
+            try {
+                store.forEach(entry -> {
+                    try {
+                        writeSolution(entry.key, entry, entry.work);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writeProgressRecord(cursor, bestLoot, bestStart, bestPath);
+            out.flush();
+            fileOut.getFD().sync();
+            out.close();
+
+            long compactedBytes = fileBytes;
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            openStream(file, true);
+            fileBytes = compactedBytes;
+        }
+
+        /**
+         * openStream
+         * @param target The file to write to.
+         * @param append True to add to the end of the file, or false to start it again with a header.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        private void openStream(File target, boolean append) throws IOException {
+            fileOut = new FileOutputStream(target, append);
+            out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16));
+            if (!append) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                fileBytes = HEADER_BYTES;
+            }
+        }
+
+        /**
+         * writeSolution
+         * @param key The state's hash.
+         * @param entry The solution.
+         * @param work The number of states solved to find the solution.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        private void writeSolution(long key, MemoEntry entry, long work) throws IOException {
+            out.writeByte(RECORD_SOLUTION);
+            out.writeLong(key);
+            out.writeLong(work);
+            out.writeInt(entry.loot);
+            out.writeInt(entry.cell);
+            out.writeInt(entry.depth);
+            out.writeInt(entry.successor);
+            out.writeLong(entry.childKey);
+            writeCells(entry.path);
+            fileBytes += getRecordBytes(SOLUTION_BYTES, entry.path);
+        }
+
+        /**
+         * writeProgressRecord
+         * @param cursor The index of the first start that has not been fully searched.
+         * @param bestLoot The loot of the best path so far, or -1 if there is none.
+         * @param bestStart The cell the best path starts on, or -1 if there is none.
+         * @param bestPath The cells of the best path after its start, or null if there is none.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        private void writeProgressRecord(int cursor, int bestLoot, int bestStart, int[] bestPath) throws IOException {
+            out.writeByte(RECORD_PROGRESS);
+            out.writeInt(cursor);
+            out.writeInt(bestLoot);
+            out.writeInt(bestStart);
+            writeCells(bestPath);
+            fileBytes += getRecordBytes(PROGRESS_BYTES, bestPath);
+        }
+
+        /**
+         * writeCells
+         * @param cells The cells to write after their count, or null, which is written as a count of -1.
+         * @throws IOException Throws this exception if the file cannot be written.
+         */
+        private void writeCells(int[] cells) throws IOException {
+            out.writeInt((cells != null) ? cells.length : -1);
+            if (cells != null) {
+                for (int cell : cells) {
+                    out.writeInt(cell);
+                }
+            }
+        }
+    }
+
+    // the solver, whose stored solutions are written to the checkpoint file
+    final BattleRoyaleOptimized solver;
+    // the store that writes the solutions
+    private final Journal journal;
+    // the checkpoint file
+    private final File file;
+    // the time between checkpoints
+    private final long intervalNanos;
+
+    // PROGRESS BEGIN
+
+    // the index of the start being searched, out of the player's cell or the cells to drop in on
+    private int cursor;
+    // the loot of the best path so far and the cell it starts on. -1 if there is none
+    private int bestLoot = -1, bestStart = -1;
+    // the cells of the best path after its start. null if there is none
+    private int[] bestPath;
+    // the number of checkpoints written
+    int checkpoints;
+
+    // PROGRESS END
+
+    /**
+     * SolveCheckpoint
+     * @param map The map to solve.
+     * @param zone The compiled zone of the map.
+     * @param memoBudgetBytes The most bytes the stored solutions can take up.
+     * @param file The checkpoint file.
+     * @param intervalNanos The time between checkpoints. At least one nanosecond.
+     */
+    SolveCheckpoint(GameMap map, ZoneGrid zone, long memoBudgetBytes, File file, long intervalNanos) {
+        if (intervalNanos < 1) {
+            throw new IllegalArgumentException("The time between checkpoints must be at least one nanosecond");
+        }
+        this.file = file;
+        this.intervalNanos = intervalNanos;
+        Journal[] created = new Journal[1];
+        solver = new BattleRoyaleOptimized(map, zone, s -> created[0] = new Journal(new MemoTable(memoBudgetBytes)));
+        journal = created[0];
+    }
+
+    /**
+     * main
+     * Solves a map, writing checkpoints to a file, or resumes a solve from its checkpoint file
+     *
+     * @param args The map file, the checkpoint file, then optionally "resume" and the seconds between checkpoints
+     * @throws IOException Throws this exception if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SolveCheckpoint <map file> <checkpoint file> [resume] [seconds between checkpoints]");
+            return;
+        }
+        GameMap map = GameMap.readFromFile(new File(args[0]));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        boolean resuming = (args.length > 2) && args[2].equals("resume");
+        int intervalIndex = resuming ? 3 : 2;
+        long intervalNanos = (args.length > intervalIndex) ? (long) (Double.parseDouble(args[intervalIndex]) * 1e9) : DEFAULT_INTERVAL_NANOS;
+
+        SolveCheckpoint run = new SolveCheckpoint(map, ZoneGrid.compile(new SquareZoneModel(map.length, map.width)),
+                BattleRoyaleOptimized.DEFAULT_MEMO_BUDGET_BYTES, new File(args[1]), intervalNanos);
+        long startTime = System.nanoTime();
+        PathResult result = resuming ? run.resume() : run.solve();
+        System.out.println("It took " + ((System.nanoTime() - startTime) / 1000000) + " milliseconds to find the best path, with "
+                + run.checkpoints + " checkpoint(s)");
+        System.out.print(result);
+    }
+
+    /**
+     * solve
+     * Solves the map like BattleRoyaleOptimized.solve, starting a new checkpoint file.
+     *
+     * @return PathResult The best path found.
+     * @throws IOException Throws this exception if the checkpoint file cannot be written.
+     */
+    PathResult solve() throws IOException {
+        journal.open(file, 0, fingerprint());
+        return run();
+    }
+
+    /**
+     * resume
+     * Loads the checkpoint file and finishes the solve it was written by.
+     *
+     * @return PathResult The best path found, the same as the solve would have found without stopping.
+     * @throws IOException Throws this exception if the file cannot be read or written, or is for a different map.
+     */
+    PathResult resume() throws IOException {
+        journal.open(file, load(), fingerprint());
+        return run();
+    }
+
+    /**
+     * run
+     * Searches every start from the cursor on, writing a checkpoint whenever the time between checkpoints has passed.
+     * A search that is still running at that time is stopped for the checkpoint and continued from its stored solutions.
+     *
+     * @return PathResult The best path found.
+     * @throws IOException Throws this exception if the checkpoint file cannot be written.
+     */
+    private PathResult run() throws IOException {
+        // the same starts as BattleRoyaleOptimized.solve, in the same order
+        int[] starts;
+        int startCount;
+        int player = GridScans.findLast(solver.mapGrid, BattleRoyaleOptimized.CHAR_PLAYER, BattleRoyaleOptimized.CHAR_PLAYER_CAPITAL);
+        if (player != -1) {
+            solver.mainCharPlayer = solver.mapGrid[player];
+            starts = new int[]{player};
+            startCount = 1;
+        } else {
+            starts = new int[solver.map.size];
+            startCount = GridScans.collectDropCells(solver.mapLoot, solver.zone.escapeDeadlines, 0, starts);
+        }
+
+        long nextCheckpoint = System.nanoTime() + intervalNanos;
+        for (; cursor < startCount; ++cursor) {
+            int start = starts[cursor];
+            List<Position> path = solver.resolveRoute(start, 0, nextCheckpoint);
+            while (solver.searchAborted) {
+                writeCheckpoint(cursor);
+                nextCheckpoint = System.nanoTime() + intervalNanos;
+                path = solver.resolveRoute(start, 0, nextCheckpoint);
+            }
+
+            char[] pathMap = solver.drawPath(solver.mapGrid, start, path);
+            int loot = (pathMap != null) ? solver.getPathMapLoot(pathMap) : -1;
+            if (loot > bestLoot) {
+                bestLoot = loot;
+                bestStart = start;
+                bestPath = new int[path.size()];
+                for (int i = 0; i < bestPath.length; ++i) {
+                    bestPath[i] = solver.map.cell(path.get(i).row, path.get(i).col);
+                }
+            }
+            if ((cursor + 1 < startCount) && (System.nanoTime() > nextCheckpoint)) {
+                writeCheckpoint(cursor + 1);
+                nextCheckpoint = System.nanoTime() + intervalNanos;
+            }
+        }
+        writeCheckpoint(startCount);
+        journal.close();
+
+        if (bestPath == null) {
+            return PathResult.none(solver.map);
+        }
+        List<Position> path = new ArrayList<>(bestPath.length);
+        for (int cell : bestPath) {
+            path.add(new Position(solver.map.rows[cell], solver.map.cols[cell]));
+        }
+        return new PathResult(solver.map, bestStart, solver.centre, bestLoot, solver.drawPath(solver.mapGrid, bestStart, path));
+    }
+
+    /**
+     * writeCheckpoint
+     * @param nextCursor The index of the first start that has not been fully searched.
+     * @throws IOException Throws this exception if the checkpoint file cannot be written.
+     */
+    private void writeCheckpoint(int nextCursor) throws IOException {
+        journal.writeProgress(nextCursor, bestLoot, bestStart, bestPath);
+        ++checkpoints;
+    }
+
+    /**
+     * load
+     * Reads the stored solutions and the last progress from the checkpoint file.
+     *
+     * @return long The bytes of the file up to the end of its last whole record.
+     * @throws IOException Throws this exception if the file cannot be read or is for a different map.
+     */
+    private long load() throws IOException {
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+                throw new IOException("The file is not a checkpoint");
+            }
+            if (in.readLong() != fingerprint()) {
+                throw new IOException("The checkpoint is for a different map");
+            }
+            validBytes = HEADER_BYTES;
+            while (true) {
+                int kind = in.read();
+                if (kind == RECORD_SOLUTION) {
+                    long key = in.readLong();
+                    long work = in.readLong();
+                    int loot = in.readInt();
+                    int cell = in.readInt();
+                    int depth = in.readInt();
+                    int successor = in.readInt();
+                    long childKey = in.readLong();
+                    int[] path = readCells(in);
+                    MemoEntry entry = new MemoEntry(path, loot, cell, depth, successor, childKey);
+                    // loaded solutions are already in the file, so they go straight to the store
+                    journal.store.put(key, entry, work, solver.maxDepth - depth + 1);
+                    validBytes += getRecordBytes(SOLUTION_BYTES, path);
+                } else if (kind == RECORD_PROGRESS) {
+                    int nextCursor = in.readInt();
+                    int nextLoot = in.readInt();
+                    int nextStart = in.readInt();
+                    int[] nextPath = readCells(in);
+                    cursor = nextCursor;
+                    bestLoot = nextLoot;
+                    bestStart = nextStart;
+                    bestPath = nextPath;
+                    validBytes += getRecordBytes(PROGRESS_BYTES, nextPath);
+                } else {
+                    // the end of the file, or a record that was cut off before its kind was written
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // the last record was cut off, so it is left out
+        }
+        return validBytes;
+    }
+
+    /**
+     * getRecordBytes
+     * @param fixedBytes The bytes of the record, not counting the cells of its path.
+     * @param cells The cells of the record's path, or null if it has none.
+     * @return long The bytes the record takes up in the file.
+     */
+    static long getRecordBytes(int fixedBytes, int[] cells) {
+        return fixedBytes + ((cells != null) ? 4L * cells.length : 0);
+    }
+
+    /**
+     * readCells
+     * @param in The stream to read from.
+     * @return int[] The cells read after their count, or null if the count is -1.
+     * @throws IOException Throws this exception if the stream cannot be read.
+     */
+    private static int[] readCells(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        int[] cells = new int[count];
+        for (int i = 0; i < count; ++i) {
+            cells[i] = in.readInt();
+        }
+        return cells;
+    }
+
+    /**
+     * fingerprint
+     * @return long A hash of everything the stored solutions depend on: the map, the zone and the Zobrist keys.
+     */
+    private long fingerprint() {
+        long hash = VERSION;
+        hash = hash * 31 + solver.mapLength;
+        hash = hash * 31 + solver.mapWidth;
+        hash = hash * 31 + Arrays.hashCode(solver.mapGrid);
+        hash = hash * 31 + Arrays.hashCode(solver.zone.escapeDeadlines);
+        hash = hash * 31 + solver.maxDepth;
+        return hash * 31 + BattleRoyaleOptimized.ZOBRIST_SEED;
+    }
+}
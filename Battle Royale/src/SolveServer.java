@@ -0,0 +1,341 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * [SolveServer.java]
+ * Keeps a JVM running and solves maps sent over a local TCP connection, so that caches and compiled code stay warm
+ * A client sends maps one after another on the same connection, either as rows of tiles ended by a blank line
+ * like a map file, or as a single line in the compact form 'rows'x'columns':'tiles'
+ * Each map is answered in the same form the solvers print, followed by a blank line
+ */
+
+class SolveServer {
+    // CONSTANTS BEGIN
+
+    // the port used when none is given
+    static final int DEFAULT_PORT = 7777;
+    // the number of solves that can wait for a worker when none is given
+    static final int DEFAULT_QUEUE_SIZE = 64;
+    // the most cells and rows a map can have, and the most characters a line can have, which fits a compact map of the most cells
+    // anything longer is answered with an error without being kept, so a client cannot make a handler hold an endless map
+    static final int MAX_MAP_CELLS = 1 << 20;
+    static final int MAX_ROWS = 1 << 12;
+    static final int MAX_LINE_CHARS = MAX_MAP_CELLS + 32;
+
+    // CONSTANTS END
+
+    // the socket connections are accepted on
+    private final ServerSocket serverSocket;
+    // runs one handler per connection, on virtual threads when the JVM supports them
+    private final ExecutorService connectionHandlers;
+    // the fixed pool of threads that run solves
+    private final ExecutorService workers;
+    // permits for solves that are running or waiting. handlers block when none are left,
+    // which stops them reading and pushes back on the clients
+    private final Semaphore capacity;
+    // solves in progress, keyed by the compact form of their map, so identical maps share one solve
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    // the most bytes each solve's stored solutions can take up, so that every worker fits in memory at once
+    private final long memoBudgetBytes;
+    // compiled zones, keyed by the map dimensions. zones never change, so solvers share them
+    private final ConcurrentHashMap<Long, ZoneGrid> zones = new ConcurrentHashMap<>();
+
+    /**
+     * SolveServer
+     * @param port The port to listen on. Only connections from this machine are accepted.
+     * @param workerCount The number of solves that can run at once.
+     * @param queueSize The number of solves that can wait for a worker before handlers stop accepting maps.
+     * @throws IOException Throws this exception if the port cannot be opened.
+     */
+    SolveServer(int port, int workerCount, int queueSize) throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        connectionHandlers = newConnectionExecutor();
+        workers = Executors.newFixedThreadPool(workerCount);
+        capacity = new Semaphore(workerCount + queueSize);
+        // half the heap is left for everything else
+        memoBudgetBytes = Runtime.getRuntime().maxMemory() / 2 / workerCount;
+    }
+
+    /**
+     * main
+     * Starts a server and serves until the process is stopped
+     *
+     * @param args Optionally the port, the number of workers and the queue size, in that order
+     * @throws IOException Throws this exception if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int workerCount = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queueSize = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_QUEUE_SIZE;
+
+        SolveServer server = new SolveServer(port, workerCount, queueSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Solving maps on port " + server.getPort() + " with " + workerCount + " worker(s)");
+        server.serve();
+    }
+
+    /**
+     * newConnectionExecutor
+     * Virtual threads only exist from Java 21, so they are looked up at runtime and ordinary threads are used before that.
+     *
+     * @return ExecutorService An executor that starts a new thread for every task.
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * getPort
+     * @return int The port the server is listening on.
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * serve
+     * Accepts connections until the server is closed.
+     */
+    void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionHandlers.execute(() -> handleConnection(socket));
+            } catch (IOException e) {
+                // accept fails once the socket is closed, which ends the loop
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * close
+     * Stops accepting connections and stops the workers.
+     */
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close the server socket: " + e.getMessage());
+        }
+        connectionHandlers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * handleConnection
+     * Reads maps from a connection and writes back their solutions until the client disconnects.
+     *
+     * @param socket The connection.
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader input = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+             Writer output = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+            // the rows of the map being read, and the number of cells in them
+            List<String> rows = new ArrayList<>();
+            int cells = 0;
+            // whether the rest of a map made of rows is being skipped up to its blank line, because it was too big
+            boolean skipping = false;
+            String line;
+
+            while ((line = readLine(input)) != null) {
+                boolean tooLong = (line.length() > MAX_LINE_CHARS);
+                line = line.replace(" ", "");
+                if (line.isEmpty()) {
+                    // a blank line ends a map made of rows
+                    if (!rows.isEmpty()) {
+                        respond(output, rows, null);
+                    }
+                    rows.clear();
+                    cells = 0;
+                    skipping = false;
+                } else if (skipping) {
+                    continue;
+                } else if (rows.isEmpty() && (line.indexOf(':') >= 0)) {
+                    if (tooLong) {
+                        respondError(output, "A line can have at most " + MAX_LINE_CHARS + " characters");
+                    } else {
+                        respond(output, null, line);
+                    }
+                } else if (tooLong || (rows.size() == MAX_ROWS) || (cells + line.length() > MAX_MAP_CELLS)) {
+                    respondError(output, "A map can have at most " + MAX_ROWS + " rows and " + MAX_MAP_CELLS + " cells");
+                    rows.clear();
+                    cells = 0;
+                    skipping = true;
+                } else {
+                    rows.add(line);
+                    cells += line.length();
+                }
+            }
+            // the client may close the connection right after the last row
+            if (!rows.isEmpty()) {
+                respond(output, rows, null);
+            }
+        } catch (SocketException e) {
+            // the client went away, there is no one left to answer
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // respond answers every map it fails on, so this is only reached if reading the connection itself fails
+            System.err.println("Connection failed: " + e);
+        }
+    }
+
+    /**
+     * respond
+     * Solves one map and writes the answer.
+     *
+     * @param output The connection to write to.
+     * @param rows The rows of the map, or null if the map is in compact form.
+     * @param compact The compact form of the map, or null if the map is in rows.
+     * @throws IOException Throws this exception if the answer cannot be written.
+     * @throws InterruptedException Throws this exception if the server is stopped while waiting for the solve.
+     */
+    private void respond(Writer output, List<String> rows, String compact) throws IOException, InterruptedException {
+        String answer;
+        try {
+            GameMap map = (rows != null) ? GameMap.fromRows(rows) : GameMap.fromCompact(compact);
+            answer = submit(map).get();
+        } catch (IllegalArgumentException e) {
+            answer = "Error: " + e.getMessage() + System.lineSeparator();
+        } catch (ExecutionException e) {
+            answer = "Error: " + e.getCause() + System.lineSeparator();
+        } catch (RuntimeException e) {
+            // anything else that goes wrong with one map is answered like a failed solve, so the connection stays usable
+            answer = "Error: " + e + System.lineSeparator();
+        }
+        output.write(answer);
+        output.write(System.lineSeparator());
+        output.flush();
+    }
+
+    /**
+     * respondError
+     * Answers a map that was rejected before it could be read, the same way respond answers a map it fails on.
+     *
+     * @param output The connection to write to.
+     * @param message What was wrong with the map.
+     * @throws IOException Throws this exception if the answer cannot be written.
+     */
+    private static void respondError(Writer output, String message) throws IOException {
+        output.write("Error: " + message + System.lineSeparator());
+        output.write(System.lineSeparator());
+        output.flush();
+    }
+
+    /**
+     * readLine
+     * Reads a line ended by a line feed or the end of the input, keeping at most one character more than MAX_LINE_CHARS.
+     * The rest of a longer line is read and dropped, so the line is still used up and the next one starts in the right place.
+     *
+     * @param input The connection to read from.
+     * @return String The line without its line ending, longer than MAX_LINE_CHARS if the line was too long,
+     * or null if the client closed the connection.
+     * @throws IOException Throws this exception if the connection cannot be read.
+     */
+    private static String readLine(BufferedReader input) throws IOException {
+        int next = input.read();
+        if (next < 0) {
+            return null;
+        }
+        StringBuilder line = new StringBuilder();
+        // the number of characters read, including the ones dropped
+        long length = 0;
+        while ((next >= 0) && (next != '\n')) {
+            if (length <= MAX_LINE_CHARS) {
+                line.append((char) next);
+            }
+            ++length;
+            next = input.read();
+        }
+        // a line ended by a carriage return and a line feed is the same line
+        if ((length == line.length()) && (length > 0) && (line.charAt(line.length() - 1) == '\r')) {
+            line.setLength(line.length() - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * submit
+     * Starts solving a map, or joins the solve of an identical map that is already in progress.
+     * Blocks while the workers and their queue are full.
+     * Once the server is closed, the solution fails with a RejectedExecutionException.
+     *
+     * @param map The map to solve.
+     * @return CompletableFuture The printed solution of the map.
+     * @throws InterruptedException Throws this exception if the server is stopped while waiting for room in the queue.
+     */
+    CompletableFuture<String> submit(GameMap map) throws InterruptedException {
+        String key = map.toCompact();
+        CompletableFuture<String> solution = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, solution);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            inFlight.remove(key, solution);
+            solution.completeExceptionally(e);
+            throw e;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    solution.complete(solve(map));
+                } catch (Throwable e) {
+                    solution.completeExceptionally(e);
+                } finally {
+                    // later requests for the same map start a new solve, so they see any change to the server's settings
+                    inFlight.remove(key, solution);
+                    capacity.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the server was closed, so the solve never starts and its permit and entry are given back here
+            inFlight.remove(key, solution);
+            capacity.release();
+            solution.completeExceptionally(e);
+        }
+        return solution;
+    }
+
+    /**
+     * solve
+     * @param map The map to solve.
+     * @return String The solution in the same form the solvers print it.
+     */
+    private String solve(GameMap map) {
+        long dimensions = ((long) map.length << 32) | map.width;
+        ZoneGrid zone = zones.computeIfAbsent(dimensions, key -> ZoneGrid.compile(new SquareZoneModel(map.length, map.width)));
+        return new BattleRoyaleOptimized(map, zone, memoBudgetBytes).solve().toString();
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * [SolverPlanner.java]
+ * Moves each player along the best path BattleRoyaleOptimized finds on the loot that is left
+ * The path is planned again whenever loot on it is taken by another player or the player falls behind it
+ * Exact but expensive, so it suits small maps or few players
+ */
+
+class SolverPlanner implements AgentPlanner {
+    // the solver, created for the first match's map. it reads the match's loot grid directly
+    private BattleRoyaleOptimized solver;
+    // the match the solver was created for
+    private MatchSimulation solverMatch;
+
+    // PLAN STATE BEGIN
+
+    // the planned cells of each player, planCapacity entries per player
+    private int[] plans;
+    // the amount of loot each planned cell held when it was planned
+    private byte[] plannedLoot;
+    // the number of cells in each player's plan
+    private final int[] planLengths;
+    // the index of the next planned cell of each player
+    private final int[] planSteps;
+    // the tick each player's next planned move was expected on
+    private final int[] expectedTicks;
+    // the longest plan each player can store
+    private int planCapacity;
+
+    // PLAN STATE END
+
+    /**
+     * SolverPlanner
+     * @param playerCount The number of players this planner can plan for.
+     */
+    SolverPlanner(int playerCount) {
+        planLengths = new int[playerCount];
+        planSteps = new int[playerCount];
+        expectedTicks = new int[playerCount];
+    }
+
+    @Override
+    public int nextCell(MatchSimulation match, int player) {
+        if (solverMatch != match) {
+            start(match);
+        }
+
+        if (!isPlanValid(match, player)) {
+            plan(match, player);
+        }
+        if (planSteps[player] >= planLengths[player]) {
+            // no path exists or the player is on the centre, so try to reach the centre anyway
+            return match.stepTowards(match.cells[player], match.centre);
+        }
+
+        int next = plans[player * planCapacity + planSteps[player]];
+        ++planSteps[player];
+        expectedTicks[player] = match.tick + Math.max(match.loot[next], 1);
+        return next;
+    }
+
+    /**
+     * start
+     * Creates the solver and plan storage for a new match.
+     *
+     * @param match The match.
+     */
+    private void start(MatchSimulation match) {
+        solverMatch = match;
+        solver = new BattleRoyaleOptimized(match.map, match.zone);
+        // a path cannot have more moves than the zone has shrinks
+        planCapacity = match.zone.maxDepth + 1;
+        plans = new int[planLengths.length * planCapacity];
+        plannedLoot = new byte[plans.length];
+        Arrays.fill(planLengths, 0);
+        Arrays.fill(planSteps, 0);
+        Arrays.fill(expectedTicks, -1);
+    }
+
+    /**
+     * isPlanValid
+     * @param match The match.
+     * @param player The index of the player.
+     * @return boolean True if the player is on schedule and the next planned cell still holds the loot it was planned with.
+     */
+    private boolean isPlanValid(MatchSimulation match, int player) {
+        if ((expectedTicks[player] != match.tick) || (planSteps[player] >= planLengths[player])) {
+            return false;
+        }
+        int index = player * planCapacity + planSteps[player];
+        return match.loot[plans[index]] == plannedLoot[index];
+    }
+
+    /**
+     * plan
+     * Finds the best path from the player's cell and depth on the loot that is left.
+     *
+     * @param match The match.
+     * @param player The index of the player.
+     */
+    private void plan(MatchSimulation match, int player) {
+        List<Position> route = solver.findBestRoute(match.cells[player], match.tick);
+        int length = 0;
+        if (route != null) {
+            for (Position position : route) {
+                if (length == planCapacity) {
+                    break;
+                }
+                int cell = match.map.cell(position.row, position.col);
+                plans[player * planCapacity + length] = cell;
+                plannedLoot[player * planCapacity + length] = match.loot[cell];
+                ++length;
+            }
+        }
+        planLengths[player] = length;
+        planSteps[player] = 0;
+    }
+}
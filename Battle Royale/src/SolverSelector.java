@@ -0,0 +1,427 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * [SolverSelector.java]
+ * Picks the engine expected to solve a map fastest, and solves the map with it
+ * Each engine's solve time is predicted from features of the map and its zone by a linear model of the logarithm of the time
+ * The models start from built in weights and are fitted again to the solve times recorded from earlier runs
+ * Only engines that always find the same amount of loot are offered, so the pick only changes how long a solve takes
+ */
+
+class SolverSelector {
+    // CONSTANTS BEGIN
+
+    // the number of features a map is described by
+    static final int FEATURE_COUNT = 6;
+    // how strongly fitted weights are pulled towards the built in weights, so a few runs cannot throw the model far off
+    static final double RIDGE = 1.0;
+    // the time an engine is expected to finish within when none is given
+    static final long DEFAULT_BUDGET_NANOS = 10000000000L;
+
+    // CONSTANTS END
+
+    // the engines to pick from, and their names
+    private final List<PathSolver> engines = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    // the built in weights of each engine's model, and the weights fitted to the recorded runs
+    private final List<double[]> defaultWeights = new ArrayList<>();
+    private final List<double[]> weights = new ArrayList<>();
+    // the recorded runs of each engine. each run is the map's features followed by the logarithm of the solve time in nanoseconds
+    private final List<List<double[]>> runs = new ArrayList<>();
+
+    /**
+     * main
+     * Solves a batch of maps, each with the engine expected to be fastest, and records how long each took
+     *
+     * @param args The file the runs are recorded in, followed by the map files.
+     *             With --benchmark first, every engine expected to finish within the budget solves every map instead.
+     *             With --check first, every engine solves a fixed set of generated maps, optionally followed by how many
+     * @throws IOException Throws this exception if a file cannot be read or the runs cannot be saved
+     */
+    public static void main(String[] args) throws IOException {
+        if ((args.length > 0) && args[0].equals("--check")) {
+            int count = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+            SolverSelector selector = standard();
+            Random random = new Random(0);
+            for (int i = 0; i < count; ++i) {
+                GameMap map = HeldKarpSolver.generateCheckMap(random);
+                selector.checkAgreement(map, ZoneGrid.compile(new SquareZoneModel(map.length, map.width)), "map " + i);
+            }
+            System.out.println("The engines agree on " + count + " generated maps");
+            return;
+        }
+
+        boolean benchmark = (args.length > 0) && args[0].equals("--benchmark");
+        int first = benchmark ? 1 : 0;
+        if (args.length < first + 2) {
+            System.out.println("Give the file to record runs in, then the map files");
+            return;
+        }
+        File runFile = new File(args[first]);
+
+        SolverSelector selector = standard();
+        if (runFile.exists()) {
+            selector.loadRuns(runFile);
+        }
+
+        for (int i = first + 1; i < args.length; ++i) {
+            GameMap map = GameMap.readFromFile(new File(args[i]));
+            if (map == null) {
+                System.out.println(args[i] + ": the file does not contain a map");
+                continue;
+            }
+            ZoneGrid zone = ZoneGrid.compile(new SquareZoneModel(map.length, map.width));
+            double[] features = getFeatures(map, zone);
+
+            if (benchmark) {
+                for (int engine = 0; engine < selector.engines.size(); ++engine) {
+                    long predicted = selector.predictNanos(engine, features);
+                    if (predicted > DEFAULT_BUDGET_NANOS) {
+                        System.out.println(args[i] + ": skipped " + selector.names.get(engine) + ", expected to take " + (predicted / 1000000) + " milliseconds");
+                        continue;
+                    }
+                    long elapsed = selector.run(engine, map, zone, features).elapsedNanos;
+                    System.out.println(args[i] + ": " + selector.names.get(engine) + " took " + (elapsed / 1000000)
+                            + " milliseconds, expected " + (predicted / 1000000));
+                }
+            } else {
+                int engine = selector.choose(features, DEFAULT_BUDGET_NANOS);
+                Run run = selector.run(engine, map, zone, features);
+                System.out.println(args[i] + ": solved by " + selector.names.get(engine) + " in " + (run.elapsedNanos / 1000000) + " milliseconds");
+                System.out.print(run.result);
+            }
+            // later maps of the batch are predicted with what was learned from earlier ones
+            selector.learn();
+        }
+        selector.saveRuns(runFile);
+    }
+
+    /**
+     * standard
+     * The brute force search is not offered. It walks a cell at a time, so it can cross loot it already took or step around bigger loot,
+     * which the target search does not, and on some maps it finds a different amount of loot.
+     *
+     * @return SolverSelector A selector that picks between the target search and the search by sets of targets.
+     */
+    static SolverSelector standard() {
+        SolverSelector selector = new SolverSelector();
+        // weights for 1, ln(starts), max depth, ln(1 + loot cells), ln(1 + loot cells) * ln(1 + max depth), mean loot
+        // fitted to benchmark runs on maps from 8x10 to 45x45
+        selector.register("target search", (map, zone) -> new BattleRoyaleOptimized(map, zone).solve(),
+                new double[]{10.2, 0.7, -0.05, 0.6, 0.1, 0.45});
+        // the search by sets grows with 2^targets, so it only wins on maps with very little loot
+        selector.register("held-karp", (map, zone) -> new HeldKarpSolver(map, zone).solve(),
+                new double[]{8.8, 0.7, 0.05, 2.0, 0.1, 0.0});
+        return selector;
+    }
+
+    /**
+     * register
+     * Adds an engine to pick from.
+     *
+     * @param name The name of the engine, used to record its runs.
+     * @param engine The engine.
+     * @param initialWeights The weights of the engine's model before any runs are recorded, one per feature.
+     */
+    void register(String name, PathSolver engine, double[] initialWeights) {
+        if (initialWeights.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("An engine needs one weight per feature");
+        }
+        engines.add(engine);
+        names.add(name);
+        defaultWeights.add(initialWeights.clone());
+        weights.add(initialWeights.clone());
+        runs.add(new ArrayList<>());
+    }
+
+    /**
+     * getFeatures
+     * Describes a map by what makes it slow to solve: how many cells a search starts from, how long the zone takes to close,
+     * how many cells hold loot that can still be reached, and how much loot those cells hold.
+     *
+     * @param map The map.
+     * @param zone The compiled zone of the map.
+     * @return double[] The features of the map.
+     */
+    static double[] getFeatures(GameMap map, ZoneGrid zone) {
+        boolean hasPlayer = false;
+        int dropCells = 0;
+        int lootCells = 0;
+        int totalLoot = 0;
+        for (int cell = 0; cell < map.size; ++cell) {
+            char tile = map.tiles[cell];
+            if ((tile == BattleRoyaleOptimized.CHAR_PLAYER) || (tile == BattleRoyaleOptimized.CHAR_PLAYER_CAPITAL)) {
+                hasPlayer = true;
+            }
+            if (zone.escapeDeadlines[cell] < 0) {
+                continue;
+            }
+            if (map.loot[cell] == 0) {
+                ++dropCells;
+            } else {
+                ++lootCells;
+                totalLoot += map.loot[cell];
+            }
+        }
+        int starts = hasPlayer ? 1 : Math.max(dropCells, 1);
+        double lootTerm = Math.log(1 + lootCells);
+        return new double[]{
+                1.0,
+                Math.log(starts),
+                zone.maxDepth,
+                lootTerm,
+                lootTerm * Math.log(1 + zone.maxDepth),
+                (lootCells > 0) ? ((double) totalLoot / lootCells) : 0.0
+        };
+    }
+
+    /**
+     * predictNanos
+     * @param engine The index of the engine.
+     * @param features The features of the map.
+     * @return long The time the engine is expected to take to solve the map, in nanoseconds.
+     */
+    long predictNanos(int engine, double[] features) {
+        double[] engineWeights = weights.get(engine);
+        double logNanos = 0;
+        for (int i = 0; i < FEATURE_COUNT; ++i) {
+            logNanos += engineWeights[i] * features[i];
+        }
+        // Math.exp saturates instead of overflowing, and the cast caps it at Long.MAX_VALUE
+        return (long) Math.exp(logNanos);
+    }
+
+    /**
+     * choose
+     * Picks the engine expected to be fastest. Engines that are expected to go over the budget are only picked if every engine is.
+     *
+     * @param features The features of the map.
+     * @param budgetNanos The time the engine should finish within, in nanoseconds.
+     * @return int The index of the engine.
+     */
+    int choose(double[] features, long budgetNanos) {
+        int best = 0;
+        long bestNanos = Long.MAX_VALUE;
+        for (int engine = 0; engine < engines.size(); ++engine) {
+            long predicted = predictNanos(engine, features);
+            if (predicted < bestNanos) {
+                best = engine;
+                bestNanos = predicted;
+            }
+        }
+        if (bestNanos > budgetNanos) {
+            System.err.println("Every engine is expected to take longer than " + (budgetNanos / 1000000) + " milliseconds");
+        }
+        return best;
+    }
+
+    /**
+     * solve
+     * Solves a map with the engine expected to be fastest, and records how long it took.
+     *
+     * @param map The map.
+     * @param zone The compiled zone of the map.
+     * @param budgetNanos The time the engine should finish within, in nanoseconds.
+     * @return PathResult The best path found.
+     */
+    PathResult solve(GameMap map, ZoneGrid zone, long budgetNanos) {
+        double[] features = getFeatures(map, zone);
+        return run(choose(features, budgetNanos), map, zone, features).result;
+    }
+
+    /**
+     * checkAgreement
+     * Solves a map with every engine, printing how much loot each found.
+     *
+     * @param map The map.
+     * @param zone The compiled zone of the map.
+     * @param name The name of the map, used in the messages.
+     * @throws IllegalStateException Throws this exception if the engines find different amounts of loot
+     */
+    void checkAgreement(GameMap map, ZoneGrid zone, String name) {
+        int firstLoot = 0;
+        for (int engine = 0; engine < engines.size(); ++engine) {
+            int loot = engines.get(engine).solve(map, zone).loot;
+            System.out.println(name + ": " + names.get(engine) + ": " + loot + " item(s) of loot");
+            if (engine == 0) {
+                firstLoot = loot;
+            } else if (loot != firstLoot) {
+                throw new IllegalStateException("The engines disagree on " + name);
+            }
+        }
+    }
+
+    /**
+     * run
+     * Solves a map with an engine and records how long it took.
+     *
+     * @param engine The index of the engine.
+     * @param map The map.
+     * @param zone The compiled zone of the map.
+     * @param features The features of the map.
+     * @return Run The result and how long it took.
+     */
+    private Run run(int engine, GameMap map, ZoneGrid zone, double[] features) {
+        long startTime = System.nanoTime();
+        PathResult result = engines.get(engine).solve(map, zone);
+        long elapsed = System.nanoTime() - startTime;
+        record(engine, features, elapsed);
+        return new Run(result, elapsed);
+    }
+
+    /**
+     * record
+     * Records how long an engine took to solve a map. The models only change when learn is called.
+     *
+     * @param engine The index of the engine.
+     * @param features The features of the map.
+     * @param nanos The time the engine took, in nanoseconds.
+     */
+    void record(int engine, double[] features, long nanos) {
+        double[] sample = new double[FEATURE_COUNT + 1];
+        System.arraycopy(features, 0, sample, 0, FEATURE_COUNT);
+        sample[FEATURE_COUNT] = Math.log(Math.max(nanos, 1));
+        runs.get(engine).add(sample);
+    }
+
+    /**
+     * learn
+     * Fits each engine's model to its recorded runs with ridge regression towards its built in weights,
+     * so an engine with no runs keeps its built in weights.
+     */
+    void learn() {
+        for (int engine = 0; engine < engines.size(); ++engine) {
+            double[] prior = defaultWeights.get(engine);
+            // the normal equations (X^T X + RIDGE I) w = X^T y + RIDGE prior, as an augmented matrix
+            double[][] system = new double[FEATURE_COUNT][FEATURE_COUNT + 1];
+            for (int i = 0; i < FEATURE_COUNT; ++i) {
+                system[i][i] = RIDGE;
+                system[i][FEATURE_COUNT] = RIDGE * prior[i];
+            }
+            for (double[] sample : runs.get(engine)) {
+                for (int i = 0; i < FEATURE_COUNT; ++i) {
+                    for (int j = 0; j < FEATURE_COUNT; ++j) {
+                        system[i][j] += sample[i] * sample[j];
+                    }
+                    system[i][FEATURE_COUNT] += sample[i] * sample[FEATURE_COUNT];
+                }
+            }
+            weights.set(engine, solveLinearSystem(system));
+        }
+    }
+
+    /**
+     * solveLinearSystem
+     * Solves a linear system by Gaussian elimination with partial pivoting.
+     *
+     * @param system The augmented matrix of the system. It is changed while solving.
+     * @return double[] The solution.
+     */
+    static double[] solveLinearSystem(double[][] system) {
+        int n = system.length;
+        for (int col = 0; col < n; ++col) {
+            int pivot = col;
+            for (int row = col + 1; row < n; ++row) {
+                if (Math.abs(system[row][col]) > Math.abs(system[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            double[] swap = system[col];
+            system[col] = system[pivot];
+            system[pivot] = swap;
+
+            for (int row = col + 1; row < n; ++row) {
+                double factor = system[row][col] / system[col][col];
+                for (int k = col; k <= n; ++k) {
+                    system[row][k] -= factor * system[col][k];
+                }
+            }
+        }
+        double[] solution = new double[n];
+        for (int row = n - 1; row >= 0; --row) {
+            double sum = system[row][n];
+            for (int k = row + 1; k < n; ++k) {
+                sum -= system[row][k] * solution[k];
+            }
+            solution[row] = sum / system[row][row];
+        }
+        return solution;
+    }
+
+    /**
+     * loadRuns
+     * Reads recorded runs and fits the models to them. Runs of engines this selector does not have are ignored.
+     * Each line holds the engine's name, a tab, the map's features and the solve time in nanoseconds, separated by spaces.
+     *
+     * @param file The file the runs were saved to.
+     * @throws IOException Throws this exception if the file cannot be read.
+     */
+    void loadRuns(File file) throws IOException {
+        try (BufferedReader input = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                int engine = (tab >= 0) ? names.indexOf(line.substring(0, tab)) : -1;
+                if (engine < 0) {
+                    continue;
+                }
+                String[] values = line.substring(tab + 1).trim().split(" ");
+                if (values.length != FEATURE_COUNT + 1) {
+                    continue;
+                }
+                double[] features = new double[FEATURE_COUNT];
+                for (int i = 0; i < FEATURE_COUNT; ++i) {
+                    features[i] = Double.parseDouble(values[i]);
+                }
+                record(engine, features, Long.parseLong(values[FEATURE_COUNT]));
+            }
+        }
+        learn();
+    }
+
+    /**
+     * saveRuns
+     * Writes every recorded run, so later selectors can learn from them.
+     *
+     * @param file The file to save the runs to.
+     * @throws IOException Throws this exception if the file cannot be written.
+     */
+    void saveRuns(File file) throws IOException {
+        try (PrintWriter output = new PrintWriter(new FileWriter(file))) {
+            for (int engine = 0; engine < engines.size(); ++engine) {
+                for (double[] sample : runs.get(engine)) {
+                    StringBuilder line = new StringBuilder(names.get(engine)).append('\t');
+                    for (int i = 0; i < FEATURE_COUNT; ++i) {
+                        line.append(sample[i]).append(' ');
+                    }
+                    line.append(Math.round(Math.exp(sample[FEATURE_COUNT])));
+                    output.println(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * [Run]
+     * The result of one solve and how long it took
+     */
+    private static final class Run {
+        // the best path found
+        final PathResult result;
+        // the time the solve took, in nanoseconds
+        final long elapsedNanos;
+
+        Run(PathResult result, long elapsedNanos) {
+            this.result = result;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+}
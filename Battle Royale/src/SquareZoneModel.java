@@ -0,0 +1,91 @@
+/**
+ * [SquareZoneModel.java]
+ * A zone whose boundaries close in from all four sides of the map
+ * The amount the boundaries have moved in after each shrink is given by a schedule, so the zone can shrink at varying rates
+ */
+
+class SquareZoneModel implements ZoneModel {
+    // map dimensions
+    private final int length, width;
+    // the distance each boundary has moved in after the zone has shrunk a number of times
+    private final int[] insets;
+
+    /**
+     * SquareZoneModel
+     * Creates the standard zone, where every boundary moves in by one position each time the zone shrinks.
+     * @param length The number of rows of the map.
+     * @param width The number of columns of the map.
+     */
+    SquareZoneModel(int length, int width) {
+        this(length, width, defaultInsets(length, width));
+    }
+
+    /**
+     * SquareZoneModel
+     * Creates a zone that shrinks according to a schedule.
+     * @param length The number of rows of the map.
+     * @param width The number of columns of the map.
+     * @param insets The distance the boundaries have moved in at each depth. Must start at 0 and never decrease.
+     *               The zone stops shrinking at the last depth of the schedule.
+     */
+    SquareZoneModel(int length, int width, int[] insets) {
+        if ((insets.length == 0) || (insets[0] != 0)) {
+            throw new IllegalArgumentException("The shrink schedule must start with an inset of 0");
+        }
+        for (int i = 1; i < insets.length; ++i) {
+            if (insets[i] < insets[i - 1]) {
+                throw new IllegalArgumentException("The shrink schedule must never grow the zone");
+            }
+        }
+        this.length = length;
+        this.width = width;
+        this.insets = insets.clone();
+    }
+
+    /**
+     * defaultInsets
+     * Creates the schedule where the boundaries move in by one position per shrink until they reach the centre.
+     * @param length The number of rows of the map.
+     * @param width The number of columns of the map.
+     * @return int[] The inset of the boundaries at each depth.
+     */
+    private static int[] defaultInsets(int length, int width) {
+        int[] insets = new int[Math.min(length / 2, width / 2) + 1];
+        for (int i = 0; i < insets.length; ++i) {
+            insets[i] = i;
+        }
+        return insets;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getCentreRow() {
+        return length / 2;
+    }
+
+    @Override
+    public int getCentreCol() {
+        return width / 2;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return insets.length - 1;
+    }
+
+    @Override
+    public boolean isSafe(int row, int col, int depth) {
+        // the zone stops shrinking once the schedule runs out
+        int inset = insets[Math.min(depth, insets.length - 1)];
+        return (row >= inset) && (col >= inset) && (row <= length - inset - 1) && (col <= width - inset - 1);
+    }
+}
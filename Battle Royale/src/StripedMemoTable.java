@@ -0,0 +1,134 @@
+import java.util.function.Predicate;
+
+/**
+ * [StripedMemoTable.java]
+ * Stores the solutions of dynamic programming states for searches running on many threads at once
+ * Solutions are split between several MemoTables by their key, and each table has its own lock,
+ * so threads only wait for each other when they use the same table at the same time
+ */
+
+class StripedMemoTable implements MemoStore {
+    // the tables the solutions are split between. the number of tables is a power of two
+    private final MemoTable[] stripes;
+
+    /**
+     * StripedMemoTable
+     * @param budgetBytes The most bytes the stored solutions can take up, split evenly between the tables.
+     * @param stripeCount The least number of tables to split the solutions between. Rounded up to a power of two.
+     */
+    StripedMemoTable(long budgetBytes, int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        stripes = new MemoTable[count];
+        for (int i = 0; i < count; ++i) {
+            stripes[i] = new MemoTable(budgetBytes / count);
+        }
+    }
+
+    @Override
+    public MemoEntry get(long key) {
+        MemoTable stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    @Override
+    public void put(long key, MemoEntry entry, long work, int shallowness) {
+        MemoTable stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, entry, work, shallowness);
+        }
+    }
+
+    @Override
+    public void removeIf(Predicate<MemoEntry> condition) {
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                stripe.removeIf(condition);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    @Override
+    public boolean keepsPaths() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getUsedBytes() {
+        long usedBytes = 0;
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                usedBytes += stripe.getUsedBytes();
+            }
+        }
+        return usedBytes;
+    }
+
+    @Override
+    public long getBudgetBytes() {
+        return stripes[0].getBudgetBytes() * stripes.length;
+    }
+
+    @Override
+    public long getHits() {
+        long hits = 0;
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                hits += stripe.getHits();
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        long misses = 0;
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                misses += stripe.getMisses();
+            }
+        }
+        return misses;
+    }
+
+    @Override
+    public long getEvictions() {
+        long evictions = 0;
+        for (MemoTable stripe : stripes) {
+            synchronized (stripe) {
+                evictions += stripe.getEvictions();
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * stripeOf
+     * @param key The state's hash.
+     * @return MemoTable The table the key belongs to. High bits of the key are used, since the tables' hash maps mostly use the low bits.
+     */
+    private MemoTable stripeOf(long key) {
+        return stripes[(int) (key >>> 40) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * [TopRouteSearch.java]
+ * Finds the several best distinct paths of a map in one search, instead of solving again with cells masked out
+ * Each state keeps as many of its best solutions as paths were asked for, built from the best solutions of the states after it
+ * A solution is kept as its first segment and a link to the solution it continues with, so solutions share what they have in common
+ * Paths can be required to differ by a number of looted cells, in which case more solutions are kept until enough paths differ
+ */
+
+class TopRouteSearch {
+    // the most solutions all states together can keep. more are only kept per state while a search keeps fewer than half of this
+    // each solution only holds a link and a segment shared with the solver, so this is tens of bytes per solution
+    static final int ROUTE_BUDGET = 1 << 21;
+
+    // the solver whose map, segments and Zobrist keys are used
+    final BattleRoyaleOptimized solver;
+
+    // the best solutions of each state in order of loot, keyed by the state's hash like the solver's stored solutions
+    private final HashMap<Long, Route[]> storedRoutes = new HashMap<>();
+    // the number of solutions each state keeps, and the number all states together kept in this search
+    private int keep, storedCount;
+    // whether a state had more distinct solutions than it could keep
+    private boolean truncated;
+
+    /**
+     * [Route]
+     * One of the best solutions of a state, kept as the segment to its first target and the solution of the state after it
+     */
+    private static final class Route {
+        // the cells from the state's cell to the first target, shared with the solver's segments
+        final int[] segment;
+        // the solution the path continues with after the first target, or null if the first target is the centre
+        final Route next;
+        // the amount of loot the path collects that the state had not already targeted
+        final int loot;
+        // the number of cells in the path
+        final int length;
+
+        Route(int[] segment, Route next, int loot) {
+            this.segment = segment;
+            this.next = next;
+            this.loot = loot;
+            length = segment.length + ((next != null) ? next.length : 0);
+        }
+
+        /**
+         * getCells
+         * @return int[] The cells of the path after the state's cell, ending on the centre.
+         */
+        int[] getCells() {
+            int[] cells = new int[length];
+            int offset = 0;
+            for (Route route = this; route != null; route = route.next) {
+                System.arraycopy(route.segment, 0, cells, offset, route.segment.length);
+                offset += route.segment.length;
+            }
+            return cells;
+        }
+
+        /**
+         * hasSameCells
+         * Compares the cells of two paths in order, without joining their segments. The segments of equal paths can be split differently.
+         *
+         * @param other Another solution of the same state.
+         * @return boolean True if both paths move through the same cells in the same order.
+         */
+        boolean hasSameCells(Route other) {
+            if (length != other.length) {
+                return false;
+            }
+            Route route = this;
+            int index = 0, otherIndex = 0;
+            while ((route != null) && (other != null)) {
+                if ((route == other) && (index == otherIndex)) {
+                    // the rest of the paths is shared
+                    return true;
+                }
+                if (index == route.segment.length) {
+                    route = route.next;
+                    index = 0;
+                } else if (otherIndex == other.segment.length) {
+                    other = other.next;
+                    otherIndex = 0;
+                } else if (route.segment[index++] != other.segment[otherIndex++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * TopRouteSearch
+     * @param solver The solver of the map. Its stored solutions are not used, so it can be shared with single path searches.
+     */
+    TopRouteSearch(BattleRoyaleOptimized solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * main
+     * Prints the best few paths of a map
+     *
+     * @param args The map file, then optionally the number of paths and the number of looted cells they must differ by
+     * @throws IOException Throws this exception if the map file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        GameMap map = GameMap.readFromFile(new File((args.length > 0) ? args[0] : "map.txt"));
+        if (map == null) {
+            System.out.println("The file does not contain a map");
+            return;
+        }
+        int count = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+        int diversity = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+        TopRouteSearch search = new TopRouteSearch(new BattleRoyaleOptimized(map, ZoneGrid.compile(new SquareZoneModel(map.length, map.width))));
+
+        long startTime = System.nanoTime();
+        List<PathResult> results = search.solve(count, diversity);
+        System.out.println("It took " + ((System.nanoTime() - startTime) / 1000000) + " milliseconds to find " + results.size() + " path(s)");
+        for (PathResult result : results) {
+            System.out.print(result);
+        }
+    }
+
+    /**
+     * solve
+     * Finds the best paths from the player's position, or from the best positions to drop in if the map has no player.
+     * The first path is the one BattleRoyaleOptimized.solve finds.
+     *
+     * @param count The most paths to find.
+     * @param diversity The least number of looted cells each path must have that another has not, or the other way around.
+     * 0 only requires the paths to be different.
+     * @return List<PathResult> The paths in order of loot. Fewer than the count if there are not enough paths.
+     */
+    List<PathResult> solve(int count, int diversity) {
+        int player = GridScans.findLast(solver.mapGrid, BattleRoyaleOptimized.CHAR_PLAYER, BattleRoyaleOptimized.CHAR_PLAYER_CAPITAL);
+        int[] starts;
+        if (player != -1) {
+            solver.mainCharPlayer = solver.mapGrid[player];
+            starts = new int[]{player};
+        } else {
+            starts = new int[solver.map.size];
+            starts = Arrays.copyOf(starts, GridScans.collectDropCells(solver.mapLoot, solver.zone.escapeDeadlines, 0, starts));
+        }
+        return findTopRoutes(starts, 0, count, diversity);
+    }
+
+    /**
+     * findTopRoutes
+     * Finds the best paths from a position part way through the game.
+     *
+     * @param start The cell to start from.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @param count The most paths to find.
+     * @param diversity The least number of looted cells each path must have that another has not, or the other way around.
+     * @return List<PathResult> The paths in order of loot. Fewer than the count if there are not enough paths.
+     */
+    List<PathResult> findTopRoutes(int start, int depth, int count, int diversity) {
+        return findTopRoutes(new int[]{start}, depth, count, diversity);
+    }
+
+    /**
+     * findTopRoutes
+     * Keeps the count of solutions per state, then picks paths in order of loot that differ enough from the paths already picked.
+     * If too few differ enough and some state had to drop solutions, the search is run again keeping twice as many,
+     * as long as the last search kept fewer than half of ROUTE_BUDGET solutions.
+     *
+     * @param starts The cells to start from, in order of preference when paths have the same loot.
+     * @param depth The number of times the boundaries have already shrunk.
+     * @param count The most paths to find.
+     * @param diversity The least number of looted cells each path must have that another has not, or the other way around.
+     * @return List<PathResult> The paths in order of loot.
+     */
+    private List<PathResult> findTopRoutes(int[] starts, int depth, int count, int diversity) {
+        List<PathResult> picked = new ArrayList<>();
+        if ((count <= 0) || (depth > solver.maxDepth)) {
+            return picked;
+        }
+        // the loot may have been changed directly on the map, which the solver's segments depend on
+        solver.segments.clear();
+        for (keep = count; ; keep *= 2) {
+            storedRoutes.clear();
+            storedCount = 0;
+            truncated = false;
+
+            // the paths from every start, their cells and their looted cells, in order of loot, with earlier starts first when the loot is the same
+            List<PathResult> candidates = new ArrayList<>();
+            List<int[]> candidateCells = new ArrayList<>();
+            List<int[]> candidateLooted = new ArrayList<>();
+            for (int start : starts) {
+                int[] targets = solver.getValidTargets(start, depth);
+                int[] state = new int[targets.length + 1];
+                state[0] = depth;
+                solver.targetedKey = 0;
+                for (Route route : findTopRoutesHelper(targets, state, start)) {
+                    int[] cells = route.getCells();
+                    List<Position> path = new ArrayList<>(cells.length);
+                    for (int cell : cells) {
+                        path.add(new Position(solver.map.rows[cell], solver.map.cols[cell]));
+                    }
+                    char[] pathMap = solver.drawPath(solver.mapGrid, start, path);
+                    candidates.add(new PathResult(solver.map, start, solver.centre, solver.getPathMapLoot(pathMap), pathMap));
+                    candidateCells.add(cells);
+                    candidateLooted.add(getLootedCells(cells));
+                }
+            }
+            Integer[] order = new Integer[candidates.size()];
+            for (int i = 0; i < order.length; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(candidates.get(b).loot, candidates.get(a).loot));
+
+            picked.clear();
+            List<int[]> pickedCells = new ArrayList<>();
+            List<int[]> pickedLooted = new ArrayList<>();
+            for (int index : order) {
+                if (picked.size() == count) {
+                    break;
+                }
+                PathResult candidate = candidates.get(index);
+                boolean different = true;
+                for (int i = 0; i < picked.size(); ++i) {
+                    if (!differs(candidate.start, candidateCells.get(index), candidateLooted.get(index),
+                            picked.get(i).start, pickedCells.get(i), pickedLooted.get(i), diversity)) {
+                        different = false;
+                        break;
+                    }
+                }
+                if (different) {
+                    picked.add(candidate);
+                    pickedCells.add(candidateCells.get(index));
+                    pickedLooted.add(candidateLooted.get(index));
+                }
+            }
+            if ((picked.size() == count) || !truncated || (2L * storedCount > ROUTE_BUDGET)) {
+                storedRoutes.clear();
+                return picked;
+            }
+        }
+    }
+
+    /**
+     * findTopRoutesHelper
+     * Finds the best distinct solutions of a state, the same way as BattleRoyaleOptimized.findBestPathHelper finds the best one.
+     *
+     * @param targets The cells of loot that can be reached, starting with the centre.
+     * @param state   The depth, followed by whether each target has been targeted, like BattleRoyaleOptimized.findBestPathHelper.
+     * @param cell    The current cell, which is the start or the last target reached.
+     * @return Route[] The best distinct solutions from the cell, in order of loot. Empty if there is no path.
+     */
+    private Route[] findTopRoutesHelper(int[] targets, int[] state, int cell) {
+        int depth = state[0];
+        long stateKey = solver.targetedKey ^ solver.depthKeys[depth] ^ solver.positionKeys[cell];
+        Route[] stored = storedRoutes.get(stateKey);
+        if (stored != null) {
+            return stored;
+        }
+
+        List<Route> candidates = new ArrayList<>();
+        for (int i = 0; i < targets.length; ++i) {
+            if ((state[i + 1] != 0) || solver.targetedCells[targets[i]]) {
+                continue;
+            }
+            int target = targets[i];
+            int nextDepth = depth + ((solver.mapLoot[target] > 1) ? solver.mapLoot[target] - 1 : 0);
+            if (!solver.canLootAndLive(cell, target, nextDepth)) {
+                continue;
+            }
+            int[] segment = solver.getSegment(cell, target);
+            if (segment == null) {
+                continue;
+            }
+            nextDepth += segment.length;
+            // a detour can reach the target too late to get out, even though its distance did not
+            if ((nextDepth > solver.maxDepth) || solver.shouldJustDie(target, nextDepth)) {
+                continue;
+            }
+
+            int segmentLoot = solver.getNewLoot(segment);
+            if (target == solver.centre) {
+                candidates.add(new Route(segment, null, segmentLoot));
+                continue;
+            }
+            state[i + 1] = 1;
+            int marked = solver.markCollected(segment);
+            state[0] = nextDepth;
+
+            Route[] nextRoutes = findTopRoutesHelper(targets, state, target);
+
+            state[i + 1] = 0;
+            solver.unmarkCollected(marked);
+            state[0] = depth;
+
+            // the loot the segment collects is already targeted after it, so the segment and the rest never count the same cell
+            for (Route next : nextRoutes) {
+                candidates.add(new Route(segment, next, segmentLoot + next.loot));
+            }
+        }
+
+        // the sort keeps the order of solutions with the same loot, so the best is the one findBestPathHelper picks
+        candidates.sort((a, b) -> Integer.compare(b.loot, a.loot));
+        List<Route> best = new ArrayList<>(Math.min(keep, candidates.size()));
+        for (Route candidate : candidates) {
+            boolean repeated = false;
+            for (Route other : best) {
+                if (candidate.hasSameCells(other)) {
+                    repeated = true;
+                    break;
+                }
+            }
+            if (repeated) {
+                continue;
+            }
+            if (best.size() == keep) {
+                truncated = true;
+                break;
+            }
+            best.add(candidate);
+        }
+        Route[] routes = best.toArray(new Route[0]);
+        storedRoutes.put(stateKey, routes);
+        storedCount += routes.length;
+        return routes;
+    }
+
+    /**
+     * getLootedCells
+     * @param cells The cells a path moves through after its start.
+     * @return int[] The cells with loot the path moves through, each once and in increasing order. Every one of them is looted,
+     * since paths only pass single items before a target.
+     */
+    private int[] getLootedCells(int[] cells) {
+        int[] looted = new int[cells.length];
+        int count = 0;
+        for (int cell : cells) {
+            if (solver.mapLoot[cell] > 0) {
+                looted[count++] = cell;
+            }
+        }
+        Arrays.sort(looted, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; ++i) {
+            if ((unique == 0) || (looted[unique - 1] != looted[i])) {
+                looted[unique++] = looted[i];
+            }
+        }
+        return Arrays.copyOf(looted, unique);
+    }
+
+    /**
+     * differs
+     * Paths are the same only if they start on the same cell and move through the same cells in the same order.
+     * A drawn map would miss the order, and cells a path moves through more than once.
+     *
+     * @param start The cell a path starts on.
+     * @param cells The cells the path moves through after its start.
+     * @param looted The cells the path loots, in increasing order.
+     * @param otherStart The cell another path starts on.
+     * @param otherCells The cells the other path moves through after its start.
+     * @param otherLooted The cells the other path loots, in increasing order.
+     * @param diversity The least number of looted cells one path must have that the other has not, or the other way around.
+     * @return boolean True if the paths are different and differ by at least the number of looted cells.
+     */
+    private static boolean differs(int start, int[] cells, int[] looted, int otherStart, int[] otherCells, int[] otherLooted, int diversity) {
+        if ((start == otherStart) && Arrays.equals(cells, otherCells)) {
+            return false;
+        }
+        // the looted cells only one path has are found by merging the two sorted lists
+        int onlyFirst = 0, onlySecond = 0;
+        int i = 0, j = 0;
+        while ((i < looted.length) && (j < otherLooted.length)) {
+            if (looted[i] < otherLooted[j]) {
+                ++onlyFirst;
+                ++i;
+            } else if (looted[i] > otherLooted[j]) {
+                ++onlySecond;
+                ++j;
+            } else {
+                ++i;
+                ++j;
+            }
+        }
+        onlyFirst += looted.length - i;
+        onlySecond += otherLooted.length - j;
+        return Math.max(onlyFirst, onlySecond) >= diversity;
+    }
+}
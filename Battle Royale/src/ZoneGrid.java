@@ -0,0 +1,132 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * [ZoneGrid.java]
+ * A zone model compiled into per-position tables so that survival checks are a single array lookup
+ * Positions are indexed by their GameMap cell, 'row' * 'width' + 'column'
+ */
+
+class ZoneGrid {
+    // map dimensions
+    final int length, width;
+    // the position every path has to end on
+    final int centreRow, centreCol;
+    // the number of times the zone shrinks
+    final int maxDepth;
+    // the last depth a player can stand on each position without dying. -1 if the position is never safe
+    final int[] deadlines;
+    // the last depth a player can stand on each position and still reach the centre alive by the maximum depth
+    // negative if the centre cannot be reached from the position at all
+    final int[] escapeDeadlines;
+
+    /**
+     * ZoneGrid
+     * @param model The zone model to compile.
+     */
+    private ZoneGrid(ZoneModel model) {
+        length = model.getLength();
+        width = model.getWidth();
+        centreRow = model.getCentreRow();
+        centreCol = model.getCentreCol();
+        maxDepth = model.getMaxDepth();
+        deadlines = new int[length * width];
+        escapeDeadlines = new int[length * width];
+    }
+
+    /**
+     * compile
+     * Builds the deadline tables for a zone model.
+     * @param model The zone model.
+     * @return ZoneGrid The tables for the zone model.
+     */
+    static ZoneGrid compile(ZoneModel model) {
+        ZoneGrid zone = new ZoneGrid(model);
+        zone.fillDeadlines(model);
+        zone.fillEscapeDeadlines();
+        return zone;
+    }
+
+    /**
+     * fillDeadlines
+     * Finds the last safe depth of every position, up to the maximum depth.
+     * @param model The zone model.
+     */
+    private void fillDeadlines(ZoneModel model) {
+        for (int i = 0; i < length; ++i) {
+            for (int j = 0; j < width; ++j) {
+                int depth = -1;
+                // the zone never grows, so the first unsafe depth ends the position's lifetime
+                while ((depth < maxDepth) && model.isSafe(i, j, depth + 1)) {
+                    ++depth;
+                }
+                deadlines[i * width + j] = depth;
+            }
+        }
+    }
+
+    /**
+     * fillEscapeDeadlines
+     * Finds the last depth each position can be left from and still reach the centre alive.
+     * Works backwards from the centre, where a neighbour can be left one move earlier than the position it leads to,
+     * and never later than its own deadline. Positions are settled from the latest escape deadline to the earliest,
+     * so each position keeps the route that lets the player stay the longest.
+     */
+    private void fillEscapeDeadlines() {
+        Arrays.fill(escapeDeadlines, Integer.MIN_VALUE);
+        boolean[] settled = new boolean[length * width];
+        // each entry holds the escape deadline then the position index, ordered by the latest escape deadline first
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Integer.compare(b[0], a[0]));
+
+        int centre = centreRow * width + centreCol;
+        escapeDeadlines[centre] = Math.min(deadlines[centre], maxDepth);
+        queue.add(new int[]{escapeDeadlines[centre], centre});
+
+        while (!queue.isEmpty()) {
+            int[] entry = queue.poll();
+            int position = entry[1];
+            if (settled[position]) {
+                continue;
+            }
+            settled[position] = true;
+
+            int row = position / width;
+            int col = position % width;
+            // the 4 orthogonal neighbours
+            for (int k = 0; k < 4; ++k) {
+                int nextRow = row + ((k == 0) ? 1 : (k == 2) ? -1 : 0);
+                int nextCol = col + ((k == 1) ? 1 : (k == 3) ? -1 : 0);
+                if ((nextRow >= 0) && (nextRow < length) && (nextCol >= 0) && (nextCol < width)) {
+                    int next = nextRow * width + nextCol;
+                    int escape = Math.min(deadlines[next], entry[0] - 1);
+                    if (!settled[next] && (escape > escapeDeadlines[next])) {
+                        escapeDeadlines[next] = escape;
+                        queue.add(new int[]{escape, next});
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * isDead
+     * Checks if a player dies from standing on the cell at the given depth.
+     * @param cell The cell of the position.
+     * @param depth The number of times the zone has shrunk.
+     * @return boolean True if the position is outside the zone.
+     */
+    boolean isDead(int cell, int depth) {
+        return depth > deadlines[cell];
+    }
+
+    /**
+     * isTrapped
+     * Checks if a player at the cell and depth can no longer reach the centre before the zone closes.
+     * @param cell The cell of the position.
+     * @param depth The number of times the zone has shrunk.
+     * @return boolean True if the player will die from the zone while trying to reach the centre.
+     */
+    boolean isTrapped(int cell, int depth) {
+        return depth > escapeDeadlines[cell];
+    }
+}
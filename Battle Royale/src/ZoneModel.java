@@ -0,0 +1,47 @@
+/**
+ * [ZoneModel.java]
+ * Describes how the playable area of a map shrinks over time
+ */
+
+interface ZoneModel {
+    /**
+     * getLength
+     * @return int The number of rows of the map the zone covers.
+     */
+    int getLength();
+
+    /**
+     * getWidth
+     * @return int The number of columns of the map the zone covers.
+     */
+    int getWidth();
+
+    /**
+     * getCentreRow
+     * @return int The row of the final safe position every path has to end on.
+     */
+    int getCentreRow();
+
+    /**
+     * getCentreCol
+     * @return int The column of the final safe position every path has to end on.
+     */
+    int getCentreCol();
+
+    /**
+     * getMaxDepth
+     * @return int The number of times the zone shrinks before only the final position is left.
+     */
+    int getMaxDepth();
+
+    /**
+     * isSafe
+     * Checks if a position is inside the zone after it has shrunk the given number of times.
+     * The zone must never grow, so a position that is unsafe at some depth is unsafe at every later depth.
+     * @param row The row of the position.
+     * @param col The column of the position.
+     * @param depth The number of times the zone has shrunk.
+     * @return boolean True if a player standing on the position is alive, false otherwise.
+     */
+    boolean isSafe(int row, int col, int depth);
+}